@@ -0,0 +1,39 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.dto.BookRequest;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMapperBenchmark {
+
+    private final Book book = new Book(42, "The Pragmatic Programmer", "From journeyman to master");
+    private final BookRequest request = new BookRequest("The Pragmatic Programmer", "From journeyman to master");
+
+    @Benchmark
+    public BookResponse toResponse() {
+        return BookMapper.toResponse(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return BookMapper.toEntity(request);
+    }
+}
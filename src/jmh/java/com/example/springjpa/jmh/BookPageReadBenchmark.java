@@ -0,0 +1,91 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.SpringjpaApplication;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Reading a page of books as managed entities mapped to {@link BookResponse} afterwards, as the
+ * list endpoint used to, against the constructor-expression projection it uses now. Both run in a
+ * read-only transaction against the embedded H2 database of the {@code test} profile; run with
+ * {@code -prof gc} to compare allocation per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookPageReadBenchmark {
+
+    private static final int BOOKS = 20_000;
+
+    @Param({"100", "1000", "5000"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository repository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(SpringjpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN")
+                .run();
+        repository = context.getBean(BookRepository.class);
+        repository.saveAll(IntStream.range(0, BOOKS)
+                .mapToObj(i -> new Book(0, "Title " + i, "Description " + i))
+                .toList());
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<BookResponse> entities() {
+        PageRequest page = randomPage();
+        return readOnly.execute(status -> repository.findAll(page).map(BookMapper::toResponse));
+    }
+
+    @Benchmark
+    public Page<BookResponse> projection() {
+        return repository.findResponses(randomPage());
+    }
+
+    private PageRequest randomPage() {
+        return PageRequest.of(ThreadLocalRandom.current().nextInt(BOOKS / pageSize), pageSize, Sort.by("id"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.mapper.BookResponseCache;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * CPU time and (with -prof gc) allocation per GET /api/v1/books/{id} body written to the response
+ * stream, encoding it each time versus copying the bytes kept by {@link BookResponseCache}. The
+ * book is already in hand in both cases, as it is after a books cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookResponseCacheBenchmark {
+
+    private static final int HOT_BOOKS = 1000;
+
+    // discards writes and, like the servlet stream, stays usable after Jackson closes it
+    private final OutputStream out = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private ObjectMapper objectMapper;
+    private BookResponseCache responseCache;
+    private List<Book> books;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.BOOK_RESPONSES_CACHE);
+        cacheManager.setCacheSpecification("maximumSize=5000,expireAfterWrite=10m,recordStats");
+        responseCache = new BookResponseCache(objectMapper, cacheManager, true);
+        books = IntStream.range(0, HOT_BOOKS)
+                .mapToObj(i -> new Book(i, "Title " + i, "Description of book number " + i, 3))
+                .toList();
+        books.forEach(responseCache::found);
+    }
+
+    private Book nextBook() {
+        next = (next + 1) % HOT_BOOKS;
+        return books.get(next);
+    }
+
+    @Benchmark
+    public void encoded() throws IOException {
+        objectMapper.writeValue(out, ApiResponse.success("Book found", BookMapper.toResponse(nextBook())));
+    }
+
+    @Benchmark
+    public void cached() throws IOException {
+        out.write(responseCache.found(nextBook()));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.SpringjpaApplication;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * BookService calls through the full proxy chain (cache, retry, circuit breaker, metrics) against
+ * the embedded H2 database of the {@code test} profile, with the book cache on and off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    @Param({"caffeine", "none"})
+    String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private int firstId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(SpringjpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.cache.type=" + cacheType, "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        BookRepository repository = context.getBean(BookRepository.class);
+        firstId = repository.saveAll(IntStream.range(0, BOOKS)
+                        .mapToObj(i -> new Book(0, "Title " + i, "Description " + i))
+                        .toList())
+                .get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> getBookById() {
+        return bookService.getBookById(firstId + ThreadLocalRandom.current().nextInt(BOOKS));
+    }
+
+    @Benchmark
+    public Page<BookResponse> getAllBooks() {
+        return bookService.getAllBooks(PageRequest.of(ThreadLocalRandom.current().nextInt(BOOKS / 10), 10));
+    }
+}
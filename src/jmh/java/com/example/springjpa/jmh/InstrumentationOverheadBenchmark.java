@@ -0,0 +1,81 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.metrics.InstrumentationInterceptor;
+import com.example.springjpa.metrics.Instrumented;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of instrumenting a trivial service method: uninstrumented, the former
+ * hand-written counter/timer lookups by name, and {@link InstrumentationInterceptor} (which also
+ * records a percentile histogram and the outcome tag).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class InstrumentationOverheadBenchmark {
+
+    private MeterRegistry registry;
+    private Service plain;
+    private Service instrumented;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        plain = new Service();
+        ProxyFactory proxyFactory = new ProxyFactory(new Service());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new InstrumentationInterceptor(() -> registry));
+        instrumented = (Service) proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public int uninstrumented() {
+        return plain.getBookById(42);
+    }
+
+    @Benchmark
+    public int lookupPerCall() {
+        registry.counter("book.getBookById.calls").increment();
+
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return plain.getBookById(42);
+        } finally {
+            sample.stop(registry.timer("book.getBookById.duration"));
+        }
+    }
+
+    @Benchmark
+    public int interceptor() {
+        return instrumented.getBookById(42);
+    }
+
+    @Instrumented("book.service")
+    public static class Service {
+
+        public int getBookById(int id) {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.springjpa.jmh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call metric overhead of the pattern used in BookService (counter and timer looked up by
+ * name on every call) against meters resolved once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeterLookupBenchmark {
+
+    private MeterRegistry registry;
+    private Counter counter;
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        counter = registry.counter("book.getBookById.calls");
+        timer = registry.timer("book.getBookById.duration");
+    }
+
+    @Benchmark
+    public void lookupPerCall() {
+        registry.counter("book.getBookById.calls").increment();
+        Timer.Sample sample = Timer.start(registry);
+        sample.stop(registry.timer("book.getBookById.duration"));
+    }
+
+    @Benchmark
+    public void resolvedOnce() {
+        counter.increment();
+        Timer.Sample sample = Timer.start(registry);
+        sample.stop(timer);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.dto.PageResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Mapping plus Jackson encoding of the bodies returned by GET /api/v1/books/{id} and GET /api/v1/books.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Book book;
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        // same defaults Spring Boot applies to the MVC ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        book = new Book(42, "The Pragmatic Programmer", "From journeyman to master");
+        books = IntStream.range(0, pageSize)
+                .mapToObj(i -> new Book(i, "Title " + i, "Description of book number " + i))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] singleBook() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiResponse.success("Book found", BookMapper.toResponse(book)));
+    }
+
+    @Benchmark
+    public byte[] bookPage() throws JsonProcessingException {
+        Page<BookResponse> page = new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000)
+                .map(BookMapper::toResponse);
+        return objectMapper.writeValueAsBytes(ApiResponse.success("Books retrieved successfully", PageResponse.of(page)));
+    }
+}
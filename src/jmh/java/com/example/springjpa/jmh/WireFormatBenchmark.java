@@ -0,0 +1,97 @@
+package com.example.springjpa.jmh;
+
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.dto.PageResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Encoding and decoding a GET /api/v1/books page in each format a client can negotiate. The payload
+ * sizes, plain and compressed, are printed by {@code WireFormatSizeBenchmarkTest}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile", "avro"})
+    String format;
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ApiResponse<PageResponse<BookResponse>> body;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        // built the way WireFormatConfig and AvroHttpMessageConverter build them
+        ObjectMapper mapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            case "avro" -> AvroMapper.builder().addModule(new AvroJavaTimeModule()).build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        JavaType type = mapper.getTypeFactory().constructParametricType(ApiResponse.class,
+                mapper.getTypeFactory().constructParametricType(PageResponse.class, BookResponse.class));
+        writer = mapper.writerFor(type);
+        reader = mapper.readerFor(type);
+        if (mapper instanceof AvroMapper avroMapper) {
+            AvroSchema schema = avroMapper.schemaFor(type);
+            writer = writer.with(schema);
+            reader = reader.with(schema);
+        }
+
+        List<BookResponse> books = IntStream.range(0, pageSize)
+                .mapToObj(i -> BookMapper.toResponse(new Book(i, "Title " + i, "Description of book number " + i)))
+                .toList();
+        body = ApiResponse.success("Books retrieved successfully",
+                PageResponse.of(new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000)));
+        encoded = writer.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
@@ -2,8 +2,12 @@ package com.example.springjpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// a ConnectionFactory bean would switch off the JDBC DataSource and JPA transaction manager;
+// the reactive API builds and owns its R2DBC pool instead, see ReactiveApiConfig
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class SpringjpaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,218 @@
+package com.example.springjpa.catalog;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The whole catalog in memory, in {@link BookColumns}. It is loaded once the application is ready and
+ * then kept current from {@link BooksWritten} and {@link BooksDeleted}, applied after commit. It backs
+ * the read fallbacks of BookService, which then flag their answer as stale, and with
+ * {@code book.catalog.serve-reads} it also answers list and by-id reads without touching the
+ * database. Only writes made through this instance are seen; others show up after a restart.
+ */
+@Component
+public class BookCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(BookCatalog.class);
+    private static final ThreadLocal<Instant> STALE_AS_OF = new ThreadLocal<>();
+
+    private final BookRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean serveReads;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock; pending is only set while loading, for the changes made in the meantime
+    private BookColumns columns = new BookColumns(0);
+    private List<Consumer<BookColumns>> pending;
+    private volatile boolean loaded;
+    private volatile Instant updatedAt;
+
+    public BookCatalog(BookRepository repository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${book.catalog.enabled:false}") boolean enabled,
+                       @Value("${book.catalog.serve-reads:false}") boolean serveReads) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.serveReads = serveReads;
+        if (enabled) {
+            Gauge.builder("book.catalog.size", this, catalog -> catalog.read(BookColumns::size)).register(meterRegistry);
+            Gauge.builder("book.catalog.memory", this, catalog -> catalog.read(BookColumns::footprintBytes))
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Reads every book once. Changes committed while this runs are queued and applied on top, so
+     * none is lost whichever side of the read they land on.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        write(current -> pending = new ArrayList<>());
+        BookColumns loading = new BookColumns(1024);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Book> books = repository.streamAll()) {
+                    books.forEach(loading::put);
+                }
+            });
+        } catch (DataAccessException e) {
+            write(current -> pending = null);
+            log.warn("Could not load the book catalog; fallbacks stay empty until the next restart", e);
+            return;
+        }
+        write(current -> {
+            pending.forEach(change -> change.accept(loading));
+            pending = null;
+            columns = loading;
+        });
+        loaded = true;
+        log.info("Loaded {} books into the catalog ({} bytes)", loading.size(), loading.footprintBytes());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Whether list and by-id reads should be answered here instead of by the database.
+     */
+    public boolean isServingReads() {
+        return serveReads && loaded;
+    }
+
+    /**
+     * When the catalog last changed, i.e. how current its answers are.
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Optional<Book> findById(int id) {
+        return Optional.ofNullable(read(columns -> columns.findById(id)));
+    }
+
+    public List<Book> findAllById(Collection<Integer> ids) {
+        return read(columns -> ids.stream().distinct().map(columns::findById).filter(Objects::nonNull).toList());
+    }
+
+    public List<Book> findAfter(int afterId, int limit) {
+        return read(columns -> columns.after(afterId, limit));
+    }
+
+    /**
+     * A page in id order; see {@link #supports(Pageable)}.
+     */
+    public Page<Book> findAll(Pageable pageable) {
+        return read(columns -> new PageImpl<>(columns.slice(pageable.getOffset(), pageable.getPageSize()), pageable, columns.size()));
+    }
+
+    /**
+     * Whether the page can be cut from the catalog, which only keeps books in id order.
+     */
+    public static boolean supports(Pageable pageable) {
+        return pageable.getSort().isUnsorted() || pageable.getSort().equals(Sort.by("id"));
+    }
+
+    /**
+     * Marks the answer being produced on this thread as coming from the catalog rather than the
+     * database; see {@link #takeStaleAsOf()}.
+     */
+    public void markStale() {
+        STALE_AS_OF.set(updatedAt);
+    }
+
+    public static boolean isStale() {
+        return STALE_AS_OF.get() != null;
+    }
+
+    /**
+     * When the stale answer produced on this thread was current, or null if the answer is fresh.
+     * Clears the mark.
+     */
+    public static Instant takeStaleAsOf() {
+        Instant asOf = STALE_AS_OF.get();
+        STALE_AS_OF.remove();
+        return asOf;
+    }
+
+    /**
+     * Drops the mark left on this thread, if any; see {@link StaleMarkFilter}.
+     */
+    public static void clearStale() {
+        STALE_AS_OF.remove();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWritten(BooksWritten event) {
+        apply(columns -> event.books().forEach(columns::put));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(BooksDeleted event) {
+        apply(columns -> event.ids().forEach(columns::remove));
+    }
+
+    private void apply(Consumer<BookColumns> change) {
+        if (!enabled) {
+            return;
+        }
+        write(current -> {
+            if (pending != null) {
+                pending.add(change);
+            }
+            change.accept(current);
+        });
+    }
+
+    private void write(Consumer<BookColumns> action) {
+        lock.writeLock().lock();
+        try {
+            action.accept(columns);
+            updatedAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Function<BookColumns, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(columns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
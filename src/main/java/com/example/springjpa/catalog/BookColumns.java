@@ -0,0 +1,189 @@
+package com.example.springjpa.catalog;
+
+import com.example.springjpa.model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Books stored column by column, ordered by id: an int[] of ids, a long[] of versions and an int[]
+ * of offsets into one byte[] holding the UTF-8 title and description of every row. There is no
+ * object per book, so a million books cost a few arrays rather than millions of objects. Rewritten
+ * rows leave their old text behind; the text is compacted once that garbage outgrows the live data.
+ * Not thread-safe.
+ */
+class BookColumns {
+
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private int size;
+    private int[] ids;
+    private long[] versions;
+    private int[] textOffsets;
+    private byte[] text;
+    private int textLength;
+    private int garbage;
+
+    BookColumns(int capacity) {
+        ids = new int[capacity];
+        versions = new long[capacity];
+        textOffsets = new int[capacity];
+        text = new byte[capacity * 32];
+    }
+
+    int size() {
+        return size;
+    }
+
+    Book findById(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index >= 0 ? get(index) : null;
+    }
+
+    /**
+     * Up to {@code limit} books starting at the {@code offset}-th in id order.
+     */
+    List<Book> slice(long offset, int limit) {
+        int from = (int) Math.min(offset, size);
+        int to = Math.min(from + limit, size);
+        List<Book> books = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            books.add(get(i));
+        }
+        return books;
+    }
+
+    /**
+     * Up to {@code limit} books with an id greater than {@code afterId}, in id order.
+     */
+    List<Book> after(int afterId, int limit) {
+        int index = Arrays.binarySearch(ids, 0, size, afterId);
+        return slice(index >= 0 ? index + 1 : -index - 1, limit);
+    }
+
+    /**
+     * Adds the book, or replaces the stored row unless that one is at a later version.
+     */
+    void put(Book book) {
+        int index = size > 0 && book.getId() > ids[size - 1] ? -size - 1 : Arrays.binarySearch(ids, 0, size, book.getId());
+        if (index >= 0) {
+            if (versions[index] > book.getVersion()) {
+                return;
+            }
+            garbage += recordLength(textOffsets[index]);
+            versions[index] = book.getVersion();
+            textOffsets[index] = appendText(book.getTitle(), book.getDescription());
+            compactIfWasteful();
+            return;
+        }
+        index = -index - 1;
+        ensureCapacity(size + 1);
+        // the usual case is an id past the end, where nothing moves
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        System.arraycopy(versions, index, versions, index + 1, size - index);
+        System.arraycopy(textOffsets, index, textOffsets, index + 1, size - index);
+        ids[index] = book.getId();
+        versions[index] = book.getVersion();
+        textOffsets[index] = appendText(book.getTitle(), book.getDescription());
+        size++;
+    }
+
+    boolean remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        garbage += recordLength(textOffsets[index]);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(versions, index + 1, versions, index, size - index - 1);
+        System.arraycopy(textOffsets, index + 1, textOffsets, index, size - index - 1);
+        size--;
+        compactIfWasteful();
+        return true;
+    }
+
+    /**
+     * Bytes held by the arrays, including unused capacity and array headers.
+     */
+    long footprintBytes() {
+        return 4L * 16 + 4L * ids.length + 8L * versions.length + 4L * textOffsets.length + text.length;
+    }
+
+    private Book get(int index) {
+        int offset = textOffsets[index];
+        int titleLength = readLength(offset);
+        String title = new String(text, offset + 2, titleLength, StandardCharsets.UTF_8);
+        int descriptionAt = offset + 2 + titleLength;
+        int descriptionLength = readLength(descriptionAt);
+        String description = descriptionLength == NULL_LENGTH
+                ? null
+                : new String(text, descriptionAt + 2, descriptionLength, StandardCharsets.UTF_8);
+        return new Book(ids[index], title, description, versions[index]);
+    }
+
+    // record layout: u16 title length, title, u16 description length (0xFFFF for null), description
+    private int appendText(String title, String description) {
+        byte[] titleBytes = title.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description != null ? description.getBytes(StandardCharsets.UTF_8) : null;
+        int length = 4 + titleBytes.length + (descriptionBytes != null ? descriptionBytes.length : 0);
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(textLength + length, text.length + (text.length >> 1) + 64));
+        }
+        int offset = textLength;
+        writeLength(offset, titleBytes.length);
+        System.arraycopy(titleBytes, 0, text, offset + 2, titleBytes.length);
+        int descriptionAt = offset + 2 + titleBytes.length;
+        if (descriptionBytes == null) {
+            writeLength(descriptionAt, NULL_LENGTH);
+        } else {
+            writeLength(descriptionAt, descriptionBytes.length);
+            System.arraycopy(descriptionBytes, 0, text, descriptionAt + 2, descriptionBytes.length);
+        }
+        textLength += length;
+        return offset;
+    }
+
+    private int recordLength(int offset) {
+        int titleLength = readLength(offset);
+        int descriptionLength = readLength(offset + 2 + titleLength);
+        return 4 + titleLength + (descriptionLength == NULL_LENGTH ? 0 : descriptionLength);
+    }
+
+    private void compactIfWasteful() {
+        if (garbage < MIN_COMPACTION_BYTES || garbage < textLength - garbage) {
+            return;
+        }
+        byte[] compacted = new byte[textLength - garbage + (textLength >> 3)];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int recordLength = recordLength(textOffsets[i]);
+            System.arraycopy(text, textOffsets[i], compacted, length, recordLength);
+            textOffsets[i] = length;
+            length += recordLength;
+        }
+        text = compacted;
+        textLength = length;
+        garbage = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int grown = Math.max(capacity, ids.length + (ids.length >> 1) + 16);
+            ids = Arrays.copyOf(ids, grown);
+            versions = Arrays.copyOf(versions, grown);
+            textOffsets = Arrays.copyOf(textOffsets, grown);
+        }
+    }
+
+    private int readLength(int offset) {
+        return ((text[offset] & 0xFF) << 8) | (text[offset + 1] & 0xFF);
+    }
+
+    private void writeLength(int offset, int length) {
+        text[offset] = (byte) (length >>> 8);
+        text[offset + 1] = (byte) length;
+    }
+}
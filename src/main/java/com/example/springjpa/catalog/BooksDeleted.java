@@ -0,0 +1,14 @@
+package com.example.springjpa.catalog;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when books were deleted; ids that did not exist may be included.
+ */
+public record BooksDeleted(List<Integer> ids) {
+
+    public static BooksDeleted of(Collection<Integer> ids) {
+        return new BooksDeleted(List.copyOf(ids));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.springjpa.catalog;
+
+import com.example.springjpa.model.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when books were inserted or updated. Carries copies, so later changes to the entities
+ * do not leak into listeners that run after commit.
+ */
+public record BooksWritten(List<Book> books) {
+
+    public static BooksWritten of(Collection<Book> books) {
+        return new BooksWritten(books.stream()
+                .map(book -> new Book(book.getId(), book.getTitle(), book.getDescription(), book.getVersion()))
+                .toList());
+    }
+
+    public static BooksWritten of(Book book) {
+        return of(List.of(book));
+    }
+}
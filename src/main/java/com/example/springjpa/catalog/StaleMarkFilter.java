@@ -0,0 +1,29 @@
+package com.example.springjpa.catalog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Clears the stale mark BookService's fallbacks leave on the request thread once the request is
+ * done. The controller takes it on the success path; a request failing in between would otherwise
+ * hand it to the next request served by the same pooled thread.
+ */
+@Component
+public class StaleMarkFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            BookCatalog.clearStale();
+        }
+    }
+}
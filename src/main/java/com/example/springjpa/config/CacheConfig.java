@@ -0,0 +1,21 @@
+package com.example.springjpa.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * The cache advice runs outside the concurrency limiter (LOWEST_PRECEDENCE - 5),
+ * the resilience4j circuit breaker (which defaults to LOWEST_PRECEDENCE - 3) and
+ * the retry inside it, so hits never touch them, are never shed and cached books
+ * stay readable while the circuit is open.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 6)
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+
+    /** Encoded "Book found" responses, see {@link com.example.springjpa.mapper.BookResponseCache}. */
+    public static final String BOOK_RESPONSES_CACHE = "bookResponses";
+}
@@ -0,0 +1,49 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.limit.AdaptiveConcurrencyLimiter;
+import com.example.springjpa.limit.ConcurrencyLimitInterceptor;
+import com.example.springjpa.limit.ConcurrencyLimited;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Applies {@link ConcurrencyLimitInterceptor} to {@link ConcurrencyLimited} methods, inside the cache
+ * (LOWEST_PRECEDENCE - 6) so hits are never shed, and outside the resilience4j circuit breaker and
+ * the retry so a rejection is neither retried nor counted as a database failure.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.limiter.enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    static Advisor concurrencyLimitAdvisor(Environment environment, ObjectProvider<BulkheadRegistry> bulkheads,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        int minLimit = environment.getProperty("book.limiter.min-limit", Integer.class, 2);
+        double tolerance = environment.getProperty("book.limiter.tolerance", Double.class, 2.0);
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(operationClass -> {
+            String prefix = "book.limiter." + operationClass.getTag() + ".";
+            return new AdaptiveConcurrencyLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, 20),
+                    minLimit,
+                    environment.getProperty(prefix + "max-limit", Integer.class, 100),
+                    tolerance);
+        }, bulkheads::getObject, meterRegistry::getObject,
+                environment.getProperty("book.limiter.retry-after", Duration.class, Duration.ofSeconds(1)));
+
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(ConcurrencyLimited.class), interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 5);
+        return advisor;
+    }
+}
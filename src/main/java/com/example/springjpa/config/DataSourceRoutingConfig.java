@@ -0,0 +1,80 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.datasource.ReadWriteRoutingDataSource;
+import com.example.springjpa.datasource.ReadYourWrites;
+import com.example.springjpa.datasource.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code book.datasource.replicas.enabled=true}, read-only transactions go to the replica pools
+ * listed in {@code book.datasource.replicas.urls} and everything else to the spring.datasource primary.
+ * Every pool, primary included, publishes the hikaricp.connections.* meters (acquire and usage times
+ * among them) tagged with its pool name: primary, replica-0, replica-1, ...
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.datasource.replicas.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    ReadYourWrites readYourWrites(@Value("${book.datasource.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites);
+    }
+
+    @Bean
+    ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, ReadYourWrites readYourWrites,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${book.datasource.replicas.urls:}") List<String> urls,
+                                                 @Value("${book.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                                 @Value("${book.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                                 @Value("${book.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName(ReadWriteRoutingDataSource.replicaName(i));
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, readYourWrites, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.metrics.InstrumentationInterceptor;
+import com.example.springjpa.metrics.Instrumented;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Applies {@link InstrumentationInterceptor} to the public methods of {@link Instrumented} beans and
+ * to the book repository. It runs outside the cache (LOWEST_PRECEDENCE - 6), the concurrency limiter,
+ * the resilience4j aspects and the retry, so cache hits and rejections are timed and a call is
+ * recorded once however often it was retried.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String INSTRUMENTED_CALLS =
+            "(@within(com.example.springjpa.metrics.Instrumented) && execution(public * *(..)))"
+                    + " || this(com.example.springjpa.repository.BookRepository)";
+
+    @Bean
+    static Advisor instrumentationAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(INSTRUMENTED_CALLS);
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new InstrumentationInterceptor(meterRegistry::getObject));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 7);
+        return advisor;
+    }
+}
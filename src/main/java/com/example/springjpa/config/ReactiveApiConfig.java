@@ -0,0 +1,103 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.exception.InvalidBookException;
+import com.example.springjpa.exception.InvalidVersionException;
+import com.example.springjpa.reactive.ReactiveBookHandler;
+import com.example.springjpa.reactive.ReactiveBookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Serves /api/v2/books from its own reactor-netty server next to the servlet container, so v1 and
+ * its filters are untouched. Requests never block a thread: the routes below run on the netty
+ * event loop and talk to the database over R2DBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.reactive.enabled", havingValue = "true")
+public class ReactiveApiConfig {
+
+    // not a ConnectionFactory bean, which would make Boot back off from the JDBC DataSource
+    @Bean(destroyMethod = "close")
+    public ReactiveBookRepository reactiveBookRepository(@Value("${book.reactive.r2dbc.url}") String url,
+                                                         @Value("${book.reactive.r2dbc.username:}") String username,
+                                                         @Value("${book.reactive.r2dbc.password:}") String password,
+                                                         @Value("${book.reactive.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive")
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+        return new ReactiveBookRepository(pool);
+    }
+
+    @Bean
+    public ReactiveBookHandler reactiveBookHandler(ReactiveBookRepository repository, CacheManager cacheManager,
+                                                   ApplicationEventPublisher events) {
+        return new ReactiveBookHandler(repository, cacheManager, events);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveServer(ReactiveBookHandler handler, ObjectMapper objectMapper,
+                                           @Value("${book.reactive.port:8081}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(routes(handler), strategies));
+        return HttpServer.create().port(port).handle(adapter).bindNow();
+    }
+
+    // same status codes and messages as GlobalExceptionHandler
+    static RouterFunction<ServerResponse> routes(ReactiveBookHandler handler) {
+        return RouterFunctions.route()
+                .path("/api/v2/books", books -> books
+                        .GET("", handler::getAllBooks)
+                        .GET("/{id}", handler::getBookById)
+                        .POST("", handler::createBook)
+                        .PUT("/{id}", handler::updateBook)
+                        .DELETE("/{id}", handler::deleteBook))
+                .onError(e -> e instanceof InvalidBookException || e instanceof InvalidVersionException,
+                        (e, request) -> failure(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .onError(e -> e instanceof NumberFormatException || e instanceof ServerWebInputException,
+                        (e, request) -> failure(HttpStatus.BAD_REQUEST, "Invalid request: " + e.getMessage()))
+                .onError(OptimisticLockingFailureException.class,
+                        (e, request) -> failure(HttpStatus.CONFLICT, "Book was modified by another request; reload it and retry"))
+                .onError(Exception.class,
+                        (e, request) -> failure(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + e.getMessage()))
+                .build();
+    }
+
+    private static Mono<ServerResponse> failure(HttpStatus status, String message) {
+        return ServerResponse.status(status).bodyValue(ApiResponse.failure(message));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.retry.RetryBudget;
+import com.example.springjpa.retry.TransientRetry;
+import com.example.springjpa.retry.TransientRetryInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Applies {@link TransientRetryInterceptor} to {@link TransientRetry} methods, inside the resilience4j
+ * circuit breaker (LOWEST_PRECEDENCE - 3) and outside the transaction. The breaker sees one outcome
+ * per call and its fallback only runs once retrying is over; each attempt gets its own transaction.
+ */
+@Configuration
+public class RetryPolicyConfig {
+
+    @Bean
+    static Advisor transientRetryAdvisor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        RetryBudget budget = new RetryBudget(
+                environment.getProperty("book.retry.budget.ratio", Double.class, 0.1),
+                environment.getProperty("book.retry.budget.max-tokens", Double.class, 10.0));
+        TransientRetryInterceptor interceptor = new TransientRetryInterceptor(budget,
+                environment.getProperty("book.retry.max-attempts", Integer.class, 3),
+                environment.getProperty("book.retry.initial-backoff", Duration.class, Duration.ofMillis(50)),
+                environment.getProperty("book.retry.max-backoff", Duration.class, Duration.ofSeconds(1)),
+                meterRegistry::getObject);
+
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(TransientRetry.class), interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return advisor;
+    }
+}
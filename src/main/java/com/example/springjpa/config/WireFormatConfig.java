@@ -0,0 +1,60 @@
+package com.example.springjpa.config;
+
+import com.example.springjpa.format.AvroHttpMessageConverter;
+import com.example.springjpa.format.ResponseCompressionFilter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary encodings clients can ask for with {@code Accept} (and send with {@code Content-Type})
+ * instead of JSON: CBOR and Smile carry the same fields as the JSON, Avro leaves the field names
+ * to a schema both sides derive from the DTOs. JSON stays the answer to {@code Accept: *}{@code /*}
+ * and to requests without {@code Accept}. Whatever the encoding, large responses are compressed
+ * with {@code book.compression.enabled=true}.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final List<MediaType> BINARY_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_CBOR, APPLICATION_SMILE, AvroHttpMessageConverter.APPLICATION_AVRO);
+
+    // these replace the defaults MVC registers after the JSON converter, built from Boot's builder so
+    // spring.jackson.* applies to them as it does to JSON
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "book.compression.enabled", havingValue = "true")
+    ResponseCompressionFilter responseCompressionFilter(
+            @Value("${book.compression.min-response-size:2KB}") DataSize minResponseSize,
+            @Value("${book.compression.mime-types:application/json}") List<String> mimeTypes) {
+        return new ResponseCompressionFilter((int) minResponseSize.toBytes(), MediaType.parseMediaTypes(mimeTypes));
+    }
+
+    // appended rather than declared as a bean, which Boot would put ahead of JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new AvroHttpMessageConverter());
+    }
+}
@@ -1,65 +1,335 @@
 package com.example.springjpa.controller;
 
+import com.example.springjpa.catalog.BookCatalog;
+import com.example.springjpa.config.WireFormatConfig;
 import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.dto.BookBulkDeleteResult;
+import com.example.springjpa.dto.BookImportResult;
 import com.example.springjpa.dto.BookRequest;
 import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.dto.BookWriteStatus;
+import com.example.springjpa.dto.CursorPage;
+import com.example.springjpa.dto.PageResponse;
+import com.example.springjpa.exception.TooManyIdsException;
+import com.example.springjpa.format.BookFileFormat;
 import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.mapper.BookResponseCache;
+import com.example.springjpa.mapper.CursorCodec;
+import com.example.springjpa.mapper.ETagCodec;
 import com.example.springjpa.model.Book;
+import com.example.springjpa.model.BookVersion;
+import com.example.springjpa.service.BookImportService;
 import com.example.springjpa.service.BookService;
+import com.example.springjpa.service.BookWriteBehindService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/books")
 public class BookController {
 
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    // RFC 7240
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookResponseCache bookResponseCache;
+
+    @Autowired
+    private BookWriteBehindService writeBehind;
+
+    @Autowired
+    private BookCatalog catalog;
+
+    @Value("${book.multi-get.max-ids:500}")
+    private int maxIdsPerLookup;
+
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<BookResponse>>> getAllBooks(
+    public ResponseEntity<ApiResponse<PageResponse<BookResponse>>> getAllBooks(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+
+        // ordered so the page read for the ETag and the page returned hold the same rows
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Page<BookResponse> responsePage;
+        if (catalog.isServingReads()) {
+            // cut from memory, so the page itself is the cheapest way to its ETag
+            responsePage = catalog.findAll(pageable).map(BookMapper::toResponse);
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                    && request.checkNotModified(ETagCodec.encode(responsePage, BookResponse::getId, BookResponse::getVersion))) {
+                return null;
+            }
+        } else {
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                String eTag = ETagCodec.encode(bookService.getBookVersions(pageable), BookVersion::id, BookVersion::version);
+                if (request.checkNotModified(eTag)) {
+                    return null;
+                }
+            }
+            responsePage = bookService.getAllBooks(pageable);
+        }
+        Instant staleAsOf = BookCatalog.takeStaleAsOf();
+
+        return ResponseEntity.ok()
+                .eTag(ETagCodec.encode(responsePage, BookResponse::getId, BookResponse::getVersion))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(ApiResponse.success("Books retrieved successfully", PageResponse.of(responsePage)).staleAsOf(staleAsOf));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponse<CursorPage<BookResponse>>> getBooksAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        // fetch one extra row to learn whether another page exists without a count query
+        List<BookResponse> books = bookService.getBooksAfter(CursorCodec.decode(after), size + 1);
+        Instant staleAsOf = BookCatalog.takeStaleAsOf();
+
+        List<BookResponse> content = books.size() > size ? books.subList(0, size) : books;
+        String nextCursor = books.size() > size && !content.isEmpty()
+                ? CursorCodec.encode(content.get(content.size() - 1).getId())
+                : null;
+
+        return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully",
+                new CursorPage<>(content, size, nextCursor)).staleAsOf(staleAsOf));
+    }
+
+    // one round trip for a page that needs many books, instead of one GET /{id} each
+    @GetMapping(params = "ids")
+    public ResponseEntity<ApiResponse<List<BookResponse>>> getBooksByIds(@RequestParam Set<Integer> ids) {
+        if (ids.size() > maxIdsPerLookup) {
+            throw new TooManyIdsException(ids.size(), maxIdsPerLookup);
+        }
+        List<BookResponse> books = bookService.getBooksByIds(ids).stream()
+                .map(BookMapper::toResponse)
+                .toList();
+        Instant staleAsOf = BookCatalog.takeStaleAsOf();
+        return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully", books).staleAsOf(staleAsOf));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PageResponse<BookResponse>>> searchBooks(
+            @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Book> bookPage = bookService.getAllBooks(pageable);
+        Page<BookResponse> bookPage = q.isBlank() ? Page.empty(pageable) : bookService.searchBooks(q.trim(), pageable);
+
+        return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully", PageResponse.of(bookPage)));
+    }
+
+    @GetMapping("/export")
+    public void exportBooks(@RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        BookFileFormat exportFormat = BookFileFormat.of(format);
 
-        Page<BookResponse> responsePage = bookPage.map(BookMapper::toResponse);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + exportFormat.getExtension());
 
-        return ResponseEntity.ok(ApiResponse.success("Books retrieved successfully", responsePage));
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+        exportFormat.writeHeader(out);
+        bookService.exportBooks(book -> {
+            try {
+                exportFormat.writeRow(out, book, objectMapper);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<BookResponse>> getBookById(@PathVariable int id) {
-        return bookService.getBookById(id)
-                .map(book -> ResponseEntity.ok(ApiResponse.success("Book found", BookMapper.toResponse(book))))
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ApiResponse.failure("Book not found")));
+    public ResponseEntity<?> getBookById(@PathVariable int id, WebRequest request) {
+        Optional<Book> book;
+        if (catalog.isServingReads()) {
+            book = catalog.findById(id);
+            if (book.isPresent() && request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                    && request.checkNotModified(ETagCodec.encode(book.get().getVersion()))) {
+                return null;
+            }
+        } else {
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                OptionalLong version = bookService.getBookVersion(id);
+                if (version.isPresent() && request.checkNotModified(ETagCodec.encode(version.getAsLong()))) {
+                    return null;
+                }
+            }
+            book = bookService.getBookById(id);
+        }
+        Instant staleAsOf = BookCatalog.takeStaleAsOf();
+        if (book.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.failure("Book not found"));
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(ETagCodec.encode(book.get().getVersion()))
+                .varyBy(HttpHeaders.ACCEPT);
+        if (bookResponseCache.isEnabled() && staleAsOf == null && !asksForBinary(request.getHeader(HttpHeaders.ACCEPT))) {
+            // already-encoded JSON, copied to the output stream as is
+            return ok.contentType(MediaType.APPLICATION_JSON).body(bookResponseCache.found(book.get()));
+        }
+        return ok.body(ApiResponse.success("Book found", BookMapper.toResponse(book.get())).staleAsOf(staleAsOf));
     }
 
+    /**
+     * With {@code Prefer: respond-async} and write-behind enabled, the book is queued and 202 returned
+     * with a token; {@code GET /api/v1/books/pending/{token}} tells when it has been written.
+     */
     @PostMapping
-    public ResponseEntity<ApiResponse<BookResponse>> createBook(@Validated @RequestBody BookRequest request) {
+    public ResponseEntity<? extends ApiResponse<?>> createBook(
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            @Validated @RequestBody BookRequest request) {
+        if (writeBehind.isEnabled() && prefersAsync(prefer)) {
+            long token = writeBehind.accept(BookMapper.toEntity(request));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/books/pending/" + token))
+                    .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                    .body(ApiResponse.success("Book accepted for writing", new BookWriteStatus(token, false)));
+        }
         Book savedBook = bookService.createBook(BookMapper.toEntity(request));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Book created successfully", BookMapper.toResponse(savedBook)));
     }
 
+    @GetMapping("/pending/{token}")
+    public ResponseEntity<ApiResponse<BookWriteStatus>> getWriteStatus(@PathVariable long token) {
+        if (!writeBehind.isKnown(token)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.failure("Unknown token"));
+        }
+        String rejection = writeBehind.rejection(token);
+        if (rejection != null) {
+            return ResponseEntity.ok(new ApiResponse<>(false, "Book rejected",
+                    new BookWriteStatus(token, false, rejection)));
+        }
+        boolean written = writeBehind.isWritten(token);
+        return ResponseEntity.ok(ApiResponse.success(written ? "Book written" : "Book pending",
+                new BookWriteStatus(token, written)));
+    }
+
+    // the cached bodies are JSON; a client naming a binary type gets its body through content negotiation
+    private static boolean asksForBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            for (MediaType binary : WireFormatConfig.BINARY_MEDIA_TYPES) {
+                if (binary.includes(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean prefersAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.split(";")[0].trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BookBatchResult>>> createBooks(@RequestBody List<BookRequest> requests) {
+        List<BookBatchResult> results = bookService.createBooks(
+                requests.stream().map(BookMapper::toEntity).toList());
+
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        HttpStatus status = failed == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status)
+                .body(ApiResponse.success("Batch processed: " + (results.size() - failed) + " created, "
+                        + failed + " failed", results));
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ApiResponse<BookImportResult>> importBooks(HttpServletRequest request) throws IOException {
+        BookFileFormat format = BookFileFormat.forContentType(request.getContentType());
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        BookImportResult result = bookImportService.importBooks(format.openReader(in, objectMapper));
+
+        return ResponseEntity.ok(ApiResponse.success("Import processed: " + result.getImported() + " imported, "
+                + result.getFailed() + " failed", result));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<BookResponse>> updateBook(
             @PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Validated @RequestBody BookRequest request) {
-        return bookService.updateBook(id, BookMapper.toEntity(request))
+        return bookService.updateBook(id, BookMapper.toEntity(request), ETagCodec.decode(ifMatch))
                 .map(updated -> ResponseEntity.ok(ApiResponse.success("Book updated successfully", BookMapper.toResponse(updated))))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.failure("Book not found")));
     }
 
+    // fields left out (or null) in the body keep their current value
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponse<BookResponse>> patchBook(
+            @PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Validated @RequestBody BookRequest request) {
+        return bookService.patchBook(id, BookMapper.toEntity(request), ETagCodec.decode(ifMatch))
+                .map(updated -> ResponseEntity.ok(ApiResponse.success("Book updated successfully", BookMapper.toResponse(updated))))
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.failure("Book not found")));
+    }
+
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<ApiResponse<BookBulkDeleteResult>> deleteBooks(@RequestParam Set<Integer> ids) {
+        int deleted = bookService.deleteBooks(ids);
+        return ResponseEntity.ok(ApiResponse.success("Deleted " + deleted + " of " + ids.size() + " books",
+                new BookBulkDeleteResult(ids.size(), deleted)));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Object>> deleteBook(@PathVariable int id) {
         boolean deleted = bookService.deleteBook(id);
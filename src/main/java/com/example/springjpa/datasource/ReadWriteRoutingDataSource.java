@@ -0,0 +1,106 @@
+package com.example.springjpa.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replicas in turn and everything else to the primary. A client
+ * that wrote within the read-your-writes window keeps reading from the primary, and a replica that
+ * cannot hand out a connection is skipped in favour of the primary.
+ * <p>
+ * The target is picked when a connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager
+ * asks for the connection before the read-only flag of the transaction is published.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<DataSource> replicaDataSources;
+    private final List<String> replicas = new ArrayList<>();
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Counter replicaFailures;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicaDataSources = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = replicaName(i);
+            this.replicas.add(name);
+            targets.put(name, replicas.get(i));
+        }
+        targets.keySet().forEach(target -> routed.put((String) target,
+                meterRegistry.counter("book.datasource.connections", "target", (String) target)));
+        this.replicaFailures = meterRegistry.counter("book.datasource.replica.failures");
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public static String replicaName(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.recordWrite();
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || readYourWrites.wroteRecently()) {
+            return PRIMARY;
+        }
+        return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String target = (String) determineCurrentLookupKey();
+        try {
+            Connection connection = getResolvedDataSources().get(target).getConnection();
+            routed.get(target).increment();
+            return connection;
+        } catch (SQLException e) {
+            if (target.equals(PRIMARY)) {
+                throw e;
+            }
+            replicaFailures.increment();
+            Connection connection = primary.getConnection();
+            routed.get(PRIMARY).increment();
+            return connection;
+        }
+    }
+
+    /**
+     * Closes the replica pools, which belong to this data source; the primary is closed by its owner.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicaDataSources) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
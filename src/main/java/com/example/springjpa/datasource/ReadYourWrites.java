@@ -0,0 +1,45 @@
+package com.example.springjpa.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Remembers which clients wrote recently so their reads can stay on the primary until replicas
+ * have caught up. The client of the current thread is bound per request by {@link ReadYourWritesFilter}.
+ */
+public class ReadYourWrites {
+
+    private static final int MAX_TRACKED_CLIENTS = 100_000;
+
+    private final ThreadLocal<String> client = new ThreadLocal<>();
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .build();
+    }
+
+    void bind(String clientId) {
+        client.set(clientId);
+    }
+
+    void clear() {
+        client.remove();
+    }
+
+    public void recordWrite() {
+        String clientId = client.get();
+        if (clientId != null) {
+            recentWriters.put(clientId, Boolean.TRUE);
+        }
+    }
+
+    public boolean wroteRecently() {
+        String clientId = client.get();
+        return clientId != null && recentWriters.getIfPresent(clientId) != null;
+    }
+}
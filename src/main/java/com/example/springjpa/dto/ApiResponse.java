@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Data
 @NoArgsConstructor
@@ -13,6 +15,14 @@ public class ApiResponse<T> {
     private boolean success;
     private String message;
     private T data;
+    /** Set when the data came from the in-memory catalog because the database could not be read. */
+    private Boolean stale;
+    /** With {@link #stale}: when that data was last known to be current. */
+    private Instant asOf;
+
+    public ApiResponse(boolean success, String message, T data) {
+        this(success, message, data, null, null);
+    }
 
     public static <T> ApiResponse<T> success(String message, T data) {
         return new ApiResponse<>(true, message, data);
@@ -21,4 +31,15 @@ public class ApiResponse<T> {
     public static <T> ApiResponse<T> failure(String message) {
         return new ApiResponse<>(false, message, null);
     }
+
+    /**
+     * Flags the response as stale when {@code asOf} is set.
+     */
+    public ApiResponse<T> staleAsOf(Instant asOf) {
+        if (asOf != null) {
+            this.stale = true;
+            this.asOf = asOf;
+        }
+        return this;
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.springjpa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchResult {
+    private int index;
+    private boolean success;
+    private Integer id;
+    private String error;
+
+    public static BookBatchResult created(int index, int id) {
+        return new BookBatchResult(index, true, id, null);
+    }
+
+    public static BookBatchResult failed(int index, String error) {
+        return new BookBatchResult(index, false, null, error);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springjpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkDeleteResult {
+    private int requested;
+    private int deleted;
+}
@@ -0,0 +1,13 @@
+package com.example.springjpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportError {
+    private long line;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.example.springjpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Totals for one import. Only the first {@code book.import.max-reported-errors} errors are listed;
+ * {@code errorsTruncated} tells whether more were dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<BookImportError> errors;
+    private boolean errorsTruncated;
+}
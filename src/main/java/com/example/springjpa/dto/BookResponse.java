@@ -11,4 +11,5 @@ public class BookResponse {
     private int id;
     private String title;
     private String description;
+    private long version;
 }
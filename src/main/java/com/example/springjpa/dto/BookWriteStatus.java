@@ -0,0 +1,21 @@
+package com.example.springjpa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookWriteStatus {
+    private long token;
+    private boolean written;
+    /** Set when the database refused the book and it was dropped from the write-behind log. */
+    private String error;
+
+    public BookWriteStatus(long token, boolean written) {
+        this(token, written, null);
+    }
+}
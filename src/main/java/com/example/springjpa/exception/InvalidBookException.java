@@ -0,0 +1,8 @@
+package com.example.springjpa.exception;
+
+public class InvalidBookException extends RuntimeException {
+
+    public InvalidBookException(String reason) {
+        super("Invalid book: " + reason);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.springjpa.exception;
+
+public class InvalidVersionException extends RuntimeException {
+
+    public InvalidVersionException(String tag) {
+        super("Invalid If-Match version: " + tag);
+    }
+}
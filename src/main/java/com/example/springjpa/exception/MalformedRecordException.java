@@ -0,0 +1,8 @@
+package com.example.springjpa.exception;
+
+public class MalformedRecordException extends RuntimeException {
+
+    public MalformedRecordException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.springjpa.exception;
+
+import java.time.Duration;
+
+public class OverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OverloadedException(String operationClass, Duration retryAfter) {
+        super("Too many " + operationClass + " requests in progress; retry later");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
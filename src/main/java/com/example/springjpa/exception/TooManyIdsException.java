@@ -0,0 +1,8 @@
+package com.example.springjpa.exception;
+
+public class TooManyIdsException extends RuntimeException {
+
+    public TooManyIdsException(int requested, int max) {
+        super("Too many ids: " + requested + " requested, at most " + max + " allowed");
+    }
+}
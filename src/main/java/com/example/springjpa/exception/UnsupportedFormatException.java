@@ -0,0 +1,8 @@
+package com.example.springjpa.exception;
+
+public class UnsupportedFormatException extends RuntimeException {
+
+    public UnsupportedFormatException(String format) {
+        super("Unsupported format: " + format);
+    }
+}
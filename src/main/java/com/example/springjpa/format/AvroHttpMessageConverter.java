@@ -0,0 +1,117 @@
+package com.example.springjpa.format;
+
+import com.example.springjpa.dto.ApiResponse;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes {@code application/avro}: Avro binary without field names or type tags, decoded
+ * with the schema Jackson derives from the Java type. Clients build the same schema from the DTO
+ * classes ({@code new AvroMapper(new AvroJavaTimeModule()).schemaFor(type)}), so none is sent.
+ * <p>
+ * The schema comes from the declared type of the handler or request body. Handlers declared as
+ * {@code ResponseEntity<?>} leave the data of an {@link ApiResponse} open; its schema then follows
+ * the runtime class of that data. Types Jackson cannot describe in Avro are neither read nor
+ * written, so negotiation falls back to another format or answers 406.
+ */
+public class AvroHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_AVRO = new MediaType("application", "avro");
+
+    private final AvroMapper mapper = AvroMapper.builder().addModule(new AvroJavaTimeModule()).build();
+    private final Map<JavaType, Optional<AvroSchema>> schemas = new ConcurrentHashMap<>();
+
+    public AvroHttpMessageConverter() {
+        super(APPLICATION_AVRO);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // decided per type in canRead/canWrite
+        return true;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(mediaType) && schemaFor(javaType(type, contextClass)).isPresent();
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && schemaFor(declaredType(type, clazz)).isPresent();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return read(javaType(type, contextClass), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(mapper.constructType(clazz), inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        JavaType javaType = writeType(type, value);
+        AvroSchema schema = schemaFor(javaType).orElseThrow(() ->
+                new HttpMessageNotWritableException("No Avro schema for " + javaType));
+        mapper.writer(schema).writeValue(outputMessage.getBody(), value);
+    }
+
+    private Object read(JavaType javaType, HttpInputMessage inputMessage) throws IOException {
+        AvroSchema schema = schemaFor(javaType).orElseThrow(() ->
+                new HttpMessageNotReadableException("No Avro schema for " + javaType, inputMessage));
+        try {
+            return mapper.readerFor(javaType).with(schema).readValue(inputMessage.getBody());
+        } catch (JsonMappingException e) {
+            throw new HttpMessageNotReadableException("Malformed Avro body: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    private JavaType writeType(Type type, Object value) {
+        JavaType javaType = declaredType(type, value.getClass());
+        if (value instanceof ApiResponse<?> response && response.getData() != null
+                && javaType.containedTypeOrUnknown(0).hasRawClass(Object.class)) {
+            return mapper.getTypeFactory().constructParametricType(ApiResponse.class, response.getData().getClass());
+        }
+        return javaType;
+    }
+
+    // ResponseEntity<?> declares a wildcard, which Jackson reads as Object
+    private JavaType declaredType(Type type, Class<?> clazz) {
+        JavaType javaType = type != null ? mapper.constructType(type) : null;
+        return javaType == null || javaType.hasRawClass(Object.class) ? mapper.constructType(clazz) : javaType;
+    }
+
+    private JavaType javaType(Type type, Class<?> contextClass) {
+        return mapper.constructType(GenericTypeResolver.resolveType(type, contextClass));
+    }
+
+    private Optional<AvroSchema> schemaFor(JavaType javaType) {
+        return schemas.computeIfAbsent(javaType, key -> {
+            try {
+                return Optional.of(mapper.schemaFor(key));
+            } catch (JsonMappingException e) {
+                logger.debug("No Avro schema for " + key, e);
+                return Optional.empty();
+            }
+        });
+    }
+}
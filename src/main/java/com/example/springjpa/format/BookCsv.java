@@ -0,0 +1,161 @@
+package com.example.springjpa.format;
+
+import com.example.springjpa.dto.BookRequest;
+import com.example.springjpa.exception.MalformedRecordException;
+import com.example.springjpa.exception.UnsupportedFormatException;
+import com.example.springjpa.model.Book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 style CSV for books: fields containing a comma, quote or line break are quoted
+ * and embedded quotes are doubled.
+ */
+public class BookCsv {
+
+    public static final String HEADER = "id,title,description";
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    public static String format(Book book) {
+        return book.getId() + "," + escape(book.getTitle()) + "," + escape(book.getDescription());
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Reads records after a header line that names the columns; only {@code title} is required,
+     * so files produced by the export (with an id column) can be imported as-is.
+     */
+    static class RecordReader implements BookRecordReader {
+
+        private final BoundedLineReader in;
+        private final int titleColumn;
+        private final int descriptionColumn;
+        private long recordStart;
+
+        RecordReader(BufferedReader in) throws IOException {
+            this.in = new BoundedLineReader(in, MAX_RECORD_LENGTH);
+            List<String> header = readRecord();
+            List<String> columns = header == null ? List.of() : header.stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            this.titleColumn = columns.indexOf("title");
+            this.descriptionColumn = columns.indexOf("description");
+            if (titleColumn < 0) {
+                throw new UnsupportedFormatException("csv without a title column");
+            }
+        }
+
+        @Override
+        public BookRequest next() throws IOException {
+            List<String> fields = readRecord();
+            while (fields != null && fields.size() == 1 && fields.get(0).isEmpty()) {
+                fields = readRecord();
+            }
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() <= titleColumn) {
+                throw new MalformedRecordException("expected a title in column " + (titleColumn + 1));
+            }
+            String description = descriptionColumn >= 0 && descriptionColumn < fields.size()
+                    ? fields.get(descriptionColumn)
+                    : null;
+            return new BookRequest(fields.get(titleColumn), description == null || description.isEmpty() ? null : description);
+        }
+
+        @Override
+        public long getLineNumber() {
+            return recordStart;
+        }
+
+        private List<String> readRecord() throws IOException {
+            String line;
+            try {
+                line = in.readLine();
+            } finally {
+                recordStart = in.getLineNumber();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int length = 0;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    // a quoted field continues on the next line; one too long ends the record where it ends
+                    line = in.readLine();
+                    if (line == null) {
+                        throw new MalformedRecordException("unterminated quoted field");
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                if (++length > MAX_RECORD_LENGTH) {
+                    skipRestOfRecord(line, i, quoted);
+                    throw new MalformedRecordException("record longer than " + MAX_RECORD_LENGTH + " characters");
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+
+        private void skipRestOfRecord(String line, int from, boolean quoted) throws IOException {
+            while (line != null) {
+                for (int i = from; i < line.length(); i++) {
+                    if (line.charAt(i) == '"') {
+                        quoted = !quoted;
+                    }
+                }
+                if (!quoted) {
+                    return;
+                }
+                try {
+                    line = in.readLine();
+                } catch (MalformedRecordException e) {
+                    // skipped whole, its quotes unseen
+                    line = "";
+                }
+                from = 0;
+            }
+        }
+    }
+}
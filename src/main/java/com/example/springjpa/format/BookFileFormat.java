@@ -0,0 +1,126 @@
+package com.example.springjpa.format;
+
+import com.example.springjpa.dto.BookRequest;
+import com.example.springjpa.exception.MalformedRecordException;
+import com.example.springjpa.exception.UnsupportedFormatException;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Record-per-book formats used by the catalog export and import, processed one book at a time.
+ */
+public enum BookFileFormat {
+
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public void writeHeader(Writer out) {
+        }
+
+        @Override
+        public void writeRow(Writer out, Book book, ObjectMapper objectMapper) throws IOException {
+            out.write(objectMapper.writeValueAsString(BookMapper.toResponse(book)));
+            out.write('\n');
+        }
+
+        @Override
+        public BookRecordReader openReader(BufferedReader in, ObjectMapper objectMapper) {
+            BoundedLineReader lines = new BoundedLineReader(in, BoundedLineReader.MAX_LINE_LENGTH);
+            return new BookRecordReader() {
+                @Override
+                public BookRequest next() throws IOException {
+                    String line;
+                    do {
+                        line = lines.readLine();
+                        if (line == null) {
+                            return null;
+                        }
+                    } while (line.isBlank());
+
+                    try {
+                        BookRequest request = objectMapper.readValue(line, BookRequest.class);
+                        if (request == null) {
+                            throw new MalformedRecordException("expected a JSON object");
+                        }
+                        return request;
+                    } catch (JsonProcessingException e) {
+                        throw new MalformedRecordException(e.getOriginalMessage());
+                    }
+                }
+
+                @Override
+                public long getLineNumber() {
+                    return lines.getLineNumber();
+                }
+            };
+        }
+    },
+
+    CSV("text/csv", "csv") {
+        @Override
+        public void writeHeader(Writer out) throws IOException {
+            out.write(BookCsv.HEADER);
+            out.write('\n');
+        }
+
+        @Override
+        public void writeRow(Writer out, Book book, ObjectMapper objectMapper) throws IOException {
+            out.write(BookCsv.format(book));
+            out.write('\n');
+        }
+
+        @Override
+        public BookRecordReader openReader(BufferedReader in, ObjectMapper objectMapper) throws IOException {
+            return new BookCsv.RecordReader(in);
+        }
+    };
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    BookFileFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public static BookFileFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedFormatException(name);
+        }
+    }
+
+    public static BookFileFormat forContentType(String contentType) {
+        if (contentType != null) {
+            MediaType requested = MediaType.parseMediaType(contentType);
+            return Arrays.stream(values())
+                    .filter(format -> format.mediaType.isCompatibleWith(requested))
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedFormatException(contentType));
+        }
+        throw new UnsupportedFormatException("missing content type");
+    }
+
+    public String getContentType() {
+        return mediaType.toString();
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public abstract void writeHeader(Writer out) throws IOException;
+
+    public abstract void writeRow(Writer out, Book book, ObjectMapper objectMapper) throws IOException;
+
+    public abstract BookRecordReader openReader(BufferedReader in, ObjectMapper objectMapper) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.example.springjpa.format;
+
+import com.example.springjpa.dto.BookRequest;
+
+import java.io.IOException;
+
+/**
+ * Pulls one book record at a time from an upload, so only the current record is held in memory.
+ */
+public interface BookRecordReader {
+
+    /**
+     * @return the next record, or {@code null} at the end of the input
+     * @throws com.example.springjpa.exception.MalformedRecordException if the record cannot be parsed;
+     *         the record is consumed and reading can continue with the next one
+     */
+    BookRequest next() throws IOException;
+
+    /**
+     * @return the line on which the record last returned (or rejected) by {@link #next()} starts
+     */
+    long getLineNumber();
+}
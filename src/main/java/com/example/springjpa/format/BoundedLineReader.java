@@ -0,0 +1,95 @@
+package com.example.springjpa.format;
+
+import com.example.springjpa.exception.MalformedRecordException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link java.io.BufferedReader#readLine()} (ended by {@code \n}, {@code \r} or
+ * {@code \r\n}) but never holds more than {@code maxLength} characters of one: a longer line is
+ * skipped up to its end and reported, and reading continues with the next line.
+ */
+class BoundedLineReader {
+
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private long lineNumber;
+
+    BoundedLineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator, or {@code null} at the end of the input
+     * @throws MalformedRecordException if the line is longer than {@code maxLength}; it has been consumed
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        boolean any = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (!any) {
+                    return null;
+                }
+                lineNumber++;
+                return line.toString();
+            }
+            char c = buffer[position++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            any = true;
+            if (c == '\n' || c == '\r') {
+                skipLineFeed = c == '\r';
+                lineNumber++;
+                return line.toString();
+            }
+            if (line.length() == maxLength) {
+                skipToLineEnd();
+                lineNumber++;
+                line.setLength(0);
+                throw new MalformedRecordException("line longer than " + maxLength + " characters");
+            }
+            line.append(c);
+        }
+    }
+
+    /**
+     * @return the number of lines read so far, the last one included
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    private void skipToLineEnd() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position++];
+            if (c == '\n' || c == '\r') {
+                skipLineFeed = c == '\r';
+                return;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
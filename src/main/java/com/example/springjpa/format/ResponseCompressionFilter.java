@@ -0,0 +1,313 @@
+package com.example.springjpa.format;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses responses of at least {@code minResponseSize} bytes with one of the listed types, as
+ * gzip or deflate (zlib), whichever the client's {@code Accept-Encoding} prefers. The first bytes
+ * are held back until the threshold is crossed; a response that ends below it is sent as is with
+ * its {@code Content-Length}, one that crosses it is streamed compressed, so large exports are never
+ * buffered whole. Flushes are ignored while bytes are held back.
+ * <p>
+ * Done here rather than by Tomcat's {@code server.compression}: message converters flush before the
+ * length is known, so Tomcat compressed every response regardless of its threshold, and it only
+ * offers gzip.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final int minResponseSize;
+    private final List<MediaType> mimeTypes;
+
+    public ResponseCompressionFilter(int minResponseSize, List<MediaType> mimeTypes) {
+        this.minResponseSize = minResponseSize;
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String coding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null || HttpMethod.HEAD.matches(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressing = new CompressingResponse(response, coding);
+        chain.doFilter(request, compressing);
+        compressing.finish();
+    }
+
+    /**
+     * gzip or deflate, the one with the higher quality value ({@code *} stands for both), gzip on a
+     * tie; null when the client accepts neither.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = quality;
+                case "deflate" -> deflate = quality;
+                case "*" -> any = quality;
+                default -> {
+                }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? "gzip" : "deflate";
+    }
+
+    private boolean isCompressible(HttpServletResponse response) {
+        int status = response.getStatus();
+        if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_NOT_MODIFIED
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null || response.getContentType() == null) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(response.getContentType());
+            return mimeTypes.stream().anyMatch(mimeType -> mimeType.includes(type));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String coding;
+        private final ThresholdOutputStream outputStream = new ThresholdOutputStream();
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response, String coding) {
+            super(response);
+            this.coding = coding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        // the length of the uncompressed body; only passed on when it is sent uncompressed
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (outputStream.target != null && !outputStream.compressing) {
+                super.setContentLengthLong(length);
+            }
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            outputStream.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            outputStream.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            outputStream.reset();
+            contentLength = -1;
+            super.reset();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            outputStream.passThrough();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            outputStream.passThrough();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            outputStream.passThrough();
+            super.sendRedirect(location);
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            outputStream.finish();
+        }
+
+        private class ThresholdOutputStream extends ServletOutputStream {
+
+            private ByteArrayOutputStream held = new ByteArrayOutputStream();
+            private OutputStream target;
+            private boolean compressing;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (target == null) {
+                    if (held.size() + length < minResponseSize) {
+                        held.write(bytes, offset, length);
+                        return;
+                    }
+                    if (isCompressible(CompressingResponse.this)) {
+                        compress();
+                    } else {
+                        passThrough();
+                    }
+                }
+                target.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                throw new UnsupportedOperationException("Blocking writes only");
+            }
+
+            void reset() {
+                if (target == null) {
+                    held.reset();
+                }
+            }
+
+            private void compress() throws IOException {
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                OutputStream body = response.getOutputStream();
+                target = coding.equals("gzip") ? new GZIPOutputStream(body, 8192) : new DeflaterOutputStream(body, true);
+                compressing = true;
+                writeHeld();
+            }
+
+            void passThrough() throws IOException {
+                if (target != null) {
+                    return;
+                }
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                target = response.getOutputStream();
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                writeHeld();
+            }
+
+            private void writeHeld() throws IOException {
+                held.writeTo(target);
+                held = null;
+            }
+
+            void finish() throws IOException {
+                if (target == null) {
+                    // ended below the threshold
+                    contentLength = held.size();
+                    passThrough();
+                } else if (compressing) {
+                    // writes the trailer, once
+                    ((DeflaterOutputStream) target).finish();
+                }
+                target.flush();
+            }
+        }
+    }
+}
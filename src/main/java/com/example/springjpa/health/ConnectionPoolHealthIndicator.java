@@ -0,0 +1,31 @@
+package com.example.springjpa.health;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Down while {@link DatabaseProbe} finds the connection pool saturated. Part of the readiness group,
+ * so a load balancer stops sending traffic before requests queue up for connections.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final DatabaseProbe probe;
+
+    public ConnectionPoolHealthIndicator(DatabaseProbe probe) {
+        this.probe = probe;
+    }
+
+    @Override
+    public Health health() {
+        DatabaseProbe.PoolSnapshot pool = probe.getPool();
+        if (pool == null) {
+            return Health.unknown().build();
+        }
+        return (pool.saturated() ? Health.down() : Health.up())
+                .withDetails(pool.details())
+                .withDetail("saturated", pool.saturated())
+                .build();
+    }
+}
@@ -4,29 +4,42 @@ import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 
+/**
+ * Reports the last connection check of {@link DatabaseProbe} with its age; never touches the pool
+ * itself. A result older than {@code book.health.stale-after} means the probe is stuck and counts as
+ * down. Pool statistics are reported by {@link ConnectionPoolHealthIndicator}.
+ */
 @Component
 public class DatabaseHealthIndicator implements HealthIndicator {
 
-    private final DataSource dataSource;
+    private final DatabaseProbe probe;
 
-    public DatabaseHealthIndicator(DataSource dataSource) {
-        this.dataSource = dataSource;
+    public DatabaseHealthIndicator(DatabaseProbe probe) {
+        this.probe = probe;
     }
 
     @Override
     public Health health() {
-        try (Connection conn = dataSource.getConnection()) {
-            if (conn.isValid(1)) {
-                return Health.up().withDetail("Database", "Available").build();
-            } else {
-                return Health.down().withDetail("Database", "Not available").build();
-            }
-        } catch (SQLException e) {
-            return Health.down(e).build();
+        DatabaseProbe.Connectivity connectivity = probe.getConnectivity();
+        if (connectivity == null) {
+            return Health.unknown().withDetail("Database", "Not checked yet").build();
         }
+        Duration age = Duration.between(connectivity.checkedAt(), Instant.now());
+        boolean stale = age.compareTo(probe.getStaleAfter()) > 0;
+        Health.Builder health = connectivity.available() && !stale ? Health.up() : Health.down();
+        health.withDetail("Database", connectivity.available() ? "Available" : "Not available")
+                .withDetail("checkedAt", connectivity.checkedAt())
+                .withDetail("ageMillis", age.toMillis())
+                .withDetail("tookMillis", connectivity.took().toMillis());
+        if (stale) {
+            health.withDetail("stale", true);
+        }
+        if (connectivity.error() != null) {
+            health.withDetail("error", connectivity.error());
+        }
+        return health.build();
     }
 }
@@ -0,0 +1,168 @@
+package com.example.springjpa.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the database from a background thread so health requests only read the last result and
+ * never wait for a pool connection. One task validates a connection every {@code probe-interval};
+ * another samples the Hikari pool every {@code pool.sample-interval} without borrowing from it, and
+ * calls the pool saturated once more than {@code pool.max-waiting} threads have been waiting for a
+ * connection for {@code pool.saturated-after}.
+ */
+@Component
+public class DatabaseProbe {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseProbe.class);
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final Duration probeInterval;
+    private final Duration probeTimeout;
+    private final Duration staleAfter;
+    private final Duration poolSampleInterval;
+    private final int maxWaiting;
+    private final Duration saturatedAfter;
+
+    private volatile Connectivity connectivity;
+    private volatile PoolSnapshot pool;
+    private volatile long waitingSince = -1;
+    private ScheduledExecutorService scheduler;
+
+    public DatabaseProbe(DataSource dataSource, MeterRegistry meterRegistry,
+                         @Value("${book.health.probe-interval:5s}") Duration probeInterval,
+                         @Value("${book.health.probe-timeout:1s}") Duration probeTimeout,
+                         @Value("${book.health.stale-after:30s}") Duration staleAfter,
+                         @Value("${book.health.pool.sample-interval:1s}") Duration poolSampleInterval,
+                         @Value("${book.health.pool.max-waiting:0}") int maxWaiting,
+                         @Value("${book.health.pool.saturated-after:3s}") Duration saturatedAfter) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.probeInterval = probeInterval;
+        this.probeTimeout = probeTimeout;
+        this.staleAfter = staleAfter;
+        this.poolSampleInterval = poolSampleInterval;
+        this.maxWaiting = maxWaiting;
+        this.saturatedAfter = saturatedAfter;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "database-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // separate tasks: a connection check stuck behind a saturated pool must not stop the pool samples
+        scheduler.scheduleWithFixedDelay(this::checkConnectivity, 0, probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::samplePool, 0, poolSampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return the last connection check, or {@code null} before the first one finished
+     */
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * @return the last pool sample, or {@code null} before the first one or when the pool is not Hikari
+     */
+    public PoolSnapshot getPool() {
+        return pool;
+    }
+
+    public Duration getStaleAfter() {
+        return staleAfter;
+    }
+
+    void checkConnectivity() {
+        Instant started = Instant.now();
+        try (Connection connection = dataSource.getConnection()) {
+            int timeoutSeconds = (int) Math.max(1, probeTimeout.toSeconds());
+            connectivity = new Connectivity(connection.isValid(timeoutSeconds), null, started, Duration.between(started, Instant.now()));
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Database probe failed", e);
+            connectivity = new Connectivity(false, e.toString(), started, Duration.between(started, Instant.now()));
+        }
+    }
+
+    void samplePool() {
+        try {
+            HikariDataSource hikari = dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+            HikariPoolMXBean mxBean = hikari != null ? hikari.getHikariPoolMXBean() : null;
+            if (mxBean == null) {
+                return;
+            }
+            int waiting = mxBean.getThreadsAwaitingConnection();
+            long now = System.nanoTime();
+            if (waiting <= maxWaiting) {
+                waitingSince = -1;
+            } else if (waitingSince < 0) {
+                waitingSince = now;
+            }
+            boolean saturated = waitingSince >= 0 && now - waitingSince >= saturatedAfter.toNanos();
+            pool = new PoolSnapshot(hikari.getPoolName(), mxBean.getActiveConnections(), mxBean.getIdleConnections(),
+                    hikari.getMaximumPoolSize(), waiting, acquirePercentiles(hikari.getPoolName()), saturated, Instant.now());
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Sampling the connection pool failed", e);
+        }
+    }
+
+    private Map<String, Double> acquirePercentiles(String poolName) {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", poolName).timer();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        if (acquire == null) {
+            return percentiles;
+        }
+        for (ValueAtPercentile value : acquire.takeSnapshot().percentileValues()) {
+            percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+        }
+        percentiles.put("max", acquire.max(TimeUnit.MILLISECONDS));
+        return percentiles;
+    }
+
+    public record Connectivity(boolean available, String error, Instant checkedAt, Duration took) {
+    }
+
+    public record PoolSnapshot(String name, int active, int idle, int max, int waiting,
+                               Map<String, Double> acquireMillis, boolean saturated, Instant sampledAt) {
+
+        Map<String, Object> details() {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("name", name);
+            details.put("active", active);
+            details.put("idle", idle);
+            details.put("max", max);
+            details.put("pendingThreads", waiting);
+            details.put("acquireMillis", acquireMillis);
+            details.put("sampledAt", sampledAt);
+            return details;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.springjpa.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows the latency gradient: it compares each call's latency with a
+ * long-term average and shrinks the limit when calls get slower than {@code tolerance} times that
+ * average, i.e. when they start queueing for connections. While latency stays flat the limit grows
+ * towards its square root above the current level. Calls made while less than half the limit is in
+ * use are not taken into account.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    // guarded by this
+    private double longRtt;
+    private long samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return whether the call may go ahead; if so it must be followed by one {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted call that took {@code rttNanos}.
+     */
+    public void release(long rttNanos) {
+        update(rttNanos, inFlight.getAndDecrement());
+    }
+
+    /**
+     * Ends an admitted call whose latency says nothing about the database, e.g. one that was rejected further in.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long rtt, int inFlightAtRelease) {
+        samples++;
+        longRtt = samples == 1 ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+        if (rtt <= 0 || inFlightAtRelease * 2 < limit) {
+            // well under the limit: the latency says nothing about where the limit should be
+            return;
+        }
+        // after a slow spell the average lags behind; let it catch up so the limit can recover
+        if (longRtt > 2 * rtt) {
+            longRtt *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.springjpa.limit;
+
+import com.example.springjpa.exception.OverloadedException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sheds load for {@link ConcurrencyLimited} methods instead of letting calls queue for database
+ * connections. A call needs a slot in the {@link AdaptiveConcurrencyLimiter} of its operation
+ * class and a permit from its resilience4j bulkhead; the limiter tracks how much the database can
+ * take right now, the bulkhead is a fixed ceiling. Neither waits: a call without room is rejected
+ * with {@link OverloadedException}.
+ * <p>
+ * Exports {@code book.limiter.limit}, {@code book.limiter.in-flight} and
+ * {@code book.limiter.rejections} (tagged {@code reason=limit|bulkhead}) per {@code class}.
+ */
+public class ConcurrencyLimitInterceptor implements MethodInterceptor {
+
+    private final Function<OperationClass, AdaptiveConcurrencyLimiter> limiters;
+    private final Supplier<BulkheadRegistry> bulkheads;
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Duration retryAfter;
+    private final Map<OperationClass, Gate> gates = new ConcurrentHashMap<>();
+
+    /**
+     * @param bulkheads     resolved on the first call of each operation class, like {@code meterRegistry},
+     *                      so both can be created after the proxies that use them
+     * @param meterRegistry see {@code bulkheads}
+     */
+    public ConcurrencyLimitInterceptor(Function<OperationClass, AdaptiveConcurrencyLimiter> limiters,
+                                       Supplier<BulkheadRegistry> bulkheads, Supplier<MeterRegistry> meterRegistry,
+                                       Duration retryAfter) {
+        this.limiters = limiters;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ConcurrencyLimited limited = AnnotationUtils.findAnnotation(invocation.getMethod(), ConcurrencyLimited.class);
+        if (limited == null) {
+            return invocation.proceed();
+        }
+        Gate gate = gates.computeIfAbsent(limited.value(), operationClass -> new Gate(operationClass,
+                limiters.apply(operationClass), bulkheads.get().bulkhead(operationClass.getBulkhead()), meterRegistry.get()));
+        if (!gate.limiter.tryAcquire()) {
+            gate.rejectedByLimit.increment();
+            throw new OverloadedException(limited.value().getTag(), retryAfter);
+        }
+        if (!gate.bulkhead.tryAcquirePermission()) {
+            gate.limiter.releaseWithoutSample();
+            gate.rejectedByBulkhead.increment();
+            throw new OverloadedException(limited.value().getTag(), retryAfter);
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            gate.bulkhead.onComplete();
+            gate.limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private static class Gate {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Bulkhead bulkhead;
+        private final Counter rejectedByLimit;
+        private final Counter rejectedByBulkhead;
+
+        Gate(OperationClass operationClass, AdaptiveConcurrencyLimiter limiter, Bulkhead bulkhead, MeterRegistry meterRegistry) {
+            this.limiter = limiter;
+            this.bulkhead = bulkhead;
+            String tag = operationClass.getTag();
+            Gauge.builder("book.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            Gauge.builder("book.limiter.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            this.rejectedByLimit = meterRegistry.counter("book.limiter.rejections", "class", tag, "reason", "limit");
+            this.rejectedByBulkhead = meterRegistry.counter("book.limiter.rejections", "class", tag, "reason", "bulkhead");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.springjpa.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admits a call only while both the adaptive limit and the bulkhead of its {@link OperationClass}
+ * have room; otherwise it fails at once with {@link com.example.springjpa.exception.OverloadedException}.
+ *
+ * @see ConcurrencyLimitInterceptor
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConcurrencyLimited {
+
+    OperationClass value();
+}
@@ -0,0 +1,29 @@
+package com.example.springjpa.limit;
+
+/**
+ * The classes of operations that get their own concurrency limit and bulkhead, so that a flood of
+ * one kind cannot take every database connection from the other.
+ */
+public enum OperationClass {
+    READ("read", "bookReads"),
+    WRITE("write", "bookWrites");
+
+    private final String tag;
+    private final String bulkhead;
+
+    OperationClass(String tag, String bulkhead) {
+        this.tag = tag;
+        this.bulkhead = bulkhead;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Name of the resilience4j bulkhead instance, configured under {@code resilience4j.bulkhead.instances}.
+     */
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
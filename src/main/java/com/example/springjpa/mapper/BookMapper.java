@@ -15,6 +15,6 @@ public class BookMapper {
     }
 
     public static BookResponse toResponse(Book book) {
-        return new BookResponse(book.getId(), book.getTitle(), book.getDescription());
+        return new BookResponse(book.getId(), book.getTitle(), book.getDescription(), book.getVersion());
     }
 }
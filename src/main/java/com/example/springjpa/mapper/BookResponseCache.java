@@ -0,0 +1,58 @@
+package com.example.springjpa.mapper;
+
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+
+/**
+ * UTF-8 JSON of the GET /api/v1/books/{id} response, kept per book so hot books skip mapping
+ * and Jackson. An entry is only used for the version it was encoded from; BookService also
+ * evicts it on every update and delete so stale bytes do not linger.
+ */
+@Component
+public class BookResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache cache;
+    private final boolean enabled;
+
+    public BookResponseCache(ObjectMapper objectMapper, CacheManager cacheManager,
+                             @Value("${book.response-cache.enabled:false}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.cache = cacheManager.getCache(CacheConfig.BOOK_RESPONSES_CACHE);
+        this.enabled = enabled && cache != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public byte[] found(Book book) {
+        Entry entry = cache.get(book.getId(), Entry.class);
+        if (entry != null && entry.version() == book.getVersion()) {
+            return entry.json();
+        }
+        byte[] json = encode(book);
+        cache.put(book.getId(), new Entry(book.getVersion(), json));
+        return json;
+    }
+
+    private byte[] encode(Book book) {
+        try {
+            return objectMapper.writeValueAsBytes(ApiResponse.success("Book found", BookMapper.toResponse(book)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Entry(long version, byte[] json) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.springjpa.mapper;
+
+import com.example.springjpa.exception.InvalidVersionException;
+import org.springframework.data.domain.Page;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Uses a book's version as its entity tag, e.g. {@code W/"3"}. A page of books is tagged with a
+ * digest of its position, total and the id and version of every row on it.
+ * <p>
+ * The tags are weak: they name the data, which is the same in every encoding (JSON, CBOR, Smile,
+ * Avro, gzipped or not). Tomcat also refuses to compress responses that carry a strong tag.
+ */
+public class ETagCodec {
+
+    public static String encode(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Reads the version from an {@code If-Match} value. Weak tags and bare numbers are accepted;
+     * a missing header or {@code *} means any version.
+     */
+    public static Long decode(String tag) {
+        if (tag == null || tag.isBlank() || tag.trim().equals("*")) {
+            return null;
+        }
+        String value = tag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidVersionException(tag);
+        }
+    }
+
+    public static <T> String encode(Page<T> page, ToIntFunction<T> id, ToLongFunction<T> version) {
+        List<T> rows = page.getContent();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2 + Long.BYTES + rows.size() * (Integer.BYTES + Long.BYTES));
+        buffer.putInt(page.getNumber()).putInt(page.getSize()).putLong(page.getTotalElements());
+        for (T row : rows) {
+            buffer.putInt(id.applyAsInt(row)).putLong(version.applyAsLong(row));
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(buffer.array()) + "\"";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.springjpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times calls into {@link Instrumented} beans. The timers of an operation (one per {@link Outcome})
+ * are registered the first time it runs and reused afterwards, so a call costs two map lookups and
+ * two clock reads instead of building and looking up meter ids.
+ */
+public class InstrumentationInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<Class<?>, Map<Method, OperationTimers>> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry resolved on the first call of each operation, so the registry can be
+     *                      created after the proxies that use it
+     */
+    public InstrumentationInterceptor(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        OperationTimers operation = timersFor(invocation);
+        Throwable outer = Outcome.enter();
+        Throwable thrown = null;
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable t) {
+            thrown = t;
+            throw t;
+        } finally {
+            operation.record(Outcome.exit(outer, thrown), System.nanoTime() - start);
+        }
+    }
+
+    private OperationTimers timersFor(MethodInvocation invocation) {
+        // the proxy class: a subclass of an annotated bean, or a repository proxy implementing the annotated interface
+        Class<?> proxyClass = ((ProxyMethodInvocation) invocation).getProxy().getClass();
+        return timers.computeIfAbsent(proxyClass, type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(invocation.getMethod(), method -> new OperationTimers(timerName(proxyClass), method.getName()));
+    }
+
+    private String timerName(Class<?> proxyClass) {
+        Instrumented instrumented = AnnotationUtils.findAnnotation(proxyClass, Instrumented.class);
+        if (instrumented == null) {
+            throw new IllegalStateException(proxyClass.getName() + " is instrumented but not annotated with @Instrumented");
+        }
+        return instrumented.value();
+    }
+
+    private class OperationTimers {
+        private final Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+
+        OperationTimers(String name, String operation) {
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder(name)
+                        .tag("operation", operation)
+                        .tag("outcome", outcome.getTag())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry.get()));
+            }
+        }
+
+        void record(Outcome outcome, long nanos) {
+            byOutcome.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
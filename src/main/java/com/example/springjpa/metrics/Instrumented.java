@@ -0,0 +1,24 @@
+package com.example.springjpa.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Times every public method of the annotated bean (or repository interface) into the timer
+ * {@link #value()}, tagged with {@code operation} (the method name) and {@code outcome}.
+ *
+ * @see InstrumentationInterceptor
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Instrumented {
+
+    /**
+     * Timer name, e.g. {@code book.service}.
+     */
+    String value();
+}
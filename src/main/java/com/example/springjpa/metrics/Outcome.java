@@ -0,0 +1,59 @@
+package com.example.springjpa.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+/**
+ * How an instrumented call ended. Fallback methods report themselves through
+ * {@link #recordFallback(Throwable)}, since the circuit breaker hides the original
+ * failure from everything outside it.
+ */
+public enum Outcome {
+    SUCCESS("success"),
+    FALLBACK("fallback"),
+    CIRCUIT_OPEN("circuit_open"),
+    EXCEPTION("exception");
+
+    private static final ThreadLocal<Throwable> FALLBACK_CAUSE = new ThreadLocal<>();
+
+    private final String tag;
+
+    Outcome(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Marks the innermost instrumented call on this thread as answered by a fallback.
+     */
+    public static void recordFallback(Throwable cause) {
+        FALLBACK_CAUSE.set(cause);
+    }
+
+    static Throwable enter() {
+        Throwable outer = FALLBACK_CAUSE.get();
+        if (outer != null) {
+            FALLBACK_CAUSE.set(null);
+        }
+        return outer;
+    }
+
+    static Outcome exit(Throwable outer, Throwable thrown) {
+        Throwable fallbackCause = FALLBACK_CAUSE.get();
+        if (outer != null) {
+            FALLBACK_CAUSE.set(outer);
+        } else if (fallbackCause != null) {
+            FALLBACK_CAUSE.remove();
+        }
+
+        if (thrown instanceof CallNotPermittedException || fallbackCause instanceof CallNotPermittedException) {
+            return CIRCUIT_OPEN;
+        }
+        if (thrown != null) {
+            return EXCEPTION;
+        }
+        return fallbackCause != null ? FALLBACK : SUCCESS;
+    }
+}
@@ -7,13 +7,16 @@ import lombok.NoArgsConstructor;
 
 @Data
 @Entity
-@Table(name = "books")
+// covering index so version-only reads (ETag checks) never touch the title/description columns
+@Table(name = "books", indexes = @Index(name = "idx_books_id_version", columnList = "id, version"))
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
 
+    // pooled sequence (a table on MySQL) instead of IDENTITY so that Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     int id;
 
     @Column(nullable = false, length = 100)
@@ -21,4 +24,11 @@ public class Book {
 
     @Column(length = 100)
     String description;
+
+    @Version
+    long version;
+
+    public Book(int id, String title, String description) {
+        this(id, title, description, 0);
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.springjpa.model;
+
+/**
+ * Just the id and version of a book, read without loading the entity.
+ */
+public record BookVersion(int id, long version) {
+}
@@ -0,0 +1,153 @@
+package com.example.springjpa.reactive;
+
+import com.example.springjpa.catalog.BooksDeleted;
+import com.example.springjpa.catalog.BooksWritten;
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookRequest;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.dto.PageResponse;
+import com.example.springjpa.exception.InvalidBookException;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.mapper.ETagCodec;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.service.BookBatchWriter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Handlers of /api/v2/books, with the responses and status codes of the v1 BookController. Writes
+ * go straight to the database, so they evict the v1 caches for the book they touched and publish
+ * the same write events as BookService.
+ */
+public class ReactiveBookHandler {
+
+    private final ReactiveBookRepository repository;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher events;
+
+    public ReactiveBookHandler(ReactiveBookRepository repository, CacheManager cacheManager, ApplicationEventPublisher events) {
+        this.repository = repository;
+        this.cacheManager = cacheManager;
+        this.events = events;
+    }
+
+    /**
+     * A page of books; with {@code Accept: application/x-ndjson} the rows of the page are streamed as
+     * they are read, one JSON object per line, at the pace the client consumes them.
+     */
+    public Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        Pageable pageable = PageRequest.of(intParam(request, "page", 0), intParam(request, "size", 10), Sort.by("id"));
+        if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(repository.findPage(pageable).map(BookMapper::toResponse), BookResponse.class);
+        }
+        return Mono.zip(repository.findPage(pageable).map(BookMapper::toResponse).collectList(), repository.count())
+                .flatMap(page -> ServerResponse.ok().bodyValue(ApiResponse.success("Books retrieved successfully",
+                        PageResponse.of(new PageImpl<>(page.getT1(), pageable, page.getT2())))));
+    }
+
+    public Mono<ServerResponse> getBookById(ServerRequest request) {
+        return repository.findById(id(request))
+                .flatMap(book -> ServerResponse.ok()
+                        .eTag(ETagCodec.encode(book.getVersion()))
+                        .bodyValue(ApiResponse.success("Book found", BookMapper.toResponse(book))))
+                .switchIfEmpty(notFound());
+    }
+
+    public Mono<ServerResponse> createBook(ServerRequest request) {
+        return request.bodyToMono(BookRequest.class)
+                .map(BookMapper::toEntity)
+                .flatMap(book -> {
+                    String error = BookBatchWriter.validate(book);
+                    return error != null ? Mono.error(new InvalidBookException(error)) : repository.insert(book);
+                })
+                .doOnNext(saved -> events.publishEvent(BooksWritten.of(saved)))
+                .flatMap(saved -> ServerResponse.created(URI.create("/api/v2/books/" + saved.getId()))
+                        .bodyValue(ApiResponse.success("Book created successfully", BookMapper.toResponse(saved))));
+    }
+
+    public Mono<ServerResponse> updateBook(ServerRequest request) {
+        int id = id(request);
+        Long expectedVersion = ETagCodec.decode(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return request.bodyToMono(BookRequest.class)
+                .map(BookMapper::toEntity)
+                .flatMap(details -> {
+                    String error = BookBatchWriter.validate(details);
+                    return error != null ? Mono.<Book>error(new InvalidBookException(error)) : Mono.just(details);
+                })
+                .flatMap(details -> repository.update(id, details, expectedVersion)
+                        .flatMap(rows -> {
+                            if (rows == 0) {
+                                return conflictOrEmpty(id, expectedVersion);
+                            }
+                            evict(id);
+                            return expectedVersion != null
+                                    ? Mono.just(new Book(id, details.getTitle(), details.getDescription(), expectedVersion + 1))
+                                    : repository.findById(id);
+                        }))
+                .doOnNext(updated -> events.publishEvent(BooksWritten.of(updated)))
+                .flatMap(updated -> ServerResponse.ok()
+                        .bodyValue(ApiResponse.success("Book updated successfully", BookMapper.toResponse(updated))))
+                .switchIfEmpty(notFound());
+    }
+
+    public Mono<ServerResponse> deleteBook(ServerRequest request) {
+        int id = id(request);
+        return repository.deleteById(id)
+                .flatMap(rows -> {
+                    if (rows == 0) {
+                        return notFound();
+                    }
+                    evict(id);
+                    events.publishEvent(BooksDeleted.of(List.of(id)));
+                    return ServerResponse.ok().bodyValue(ApiResponse.success("Book deleted successfully", null));
+                });
+    }
+
+    // nothing matched: either the book is gone or someone else updated it first
+    private Mono<Book> conflictOrEmpty(int id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return repository.existsById(id).flatMap(exists -> exists
+                ? Mono.error(new ObjectOptimisticLockingFailureException(Book.class, id))
+                : Mono.empty());
+    }
+
+    private void evict(int id) {
+        Stream.of(CacheConfig.BOOKS_CACHE, CacheConfig.BOOK_RESPONSES_CACHE)
+                .map(cacheManager::getCache)
+                .filter(cache -> cache != null)
+                .forEach((Cache cache) -> cache.evict(id));
+    }
+
+    private static Mono<ServerResponse> notFound() {
+        return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue(ApiResponse.failure("Book not found"));
+    }
+
+    private static int id(ServerRequest request) {
+        return Integer.parseInt(request.pathVariable("id"));
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+}
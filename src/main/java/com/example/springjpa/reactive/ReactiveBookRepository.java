@@ -0,0 +1,159 @@
+package com.example.springjpa.reactive;
+
+import com.example.springjpa.model.Book;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The books table over R2DBC, for the reactive API. Ids come from the same book_seq as JPA and are
+ * handed out the way Hibernate's pooled optimizer does it: a fetched value v reserves v-49..v, so
+ * both stacks can insert side by side without ever picking the same id.
+ * <p>
+ * The repository owns its connection factory and disposes of it on {@link #close()}.
+ */
+public class ReactiveBookRepository implements AutoCloseable {
+
+    // allocationSize of book_seq, see Book
+    private static final int ID_BLOCK = 50;
+    private static final String COLUMNS = "id, title, description, version";
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final boolean nativeSequence;
+
+    // guarded by this
+    private long nextId = 1;
+    private long lastId = 0;
+
+    public ReactiveBookRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.client = DatabaseClient.create(connectionFactory);
+        this.transactions = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        // MySQL has no sequences, Hibernate keeps book_seq as a one-row table there
+        this.nativeSequence = !connectionFactory.getMetadata().getName().toLowerCase().contains("mysql");
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public Flux<Book> findPage(Pageable pageable) {
+        return client.sql("SELECT " + COLUMNS + " FROM books ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveBookRepository::toBook)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return client.sql("SELECT COUNT(*) FROM books")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Book> findById(int id) {
+        return client.sql("SELECT " + COLUMNS + " FROM books WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(int id) {
+        return client.sql("SELECT 1 FROM books WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Book> insert(Book book) {
+        return nextId().flatMap(id -> bindDescription(client.sql(
+                        "INSERT INTO books (" + COLUMNS + ") VALUES (:id, :title, :description, 0)")
+                        .bind("id", id)
+                        .bind("title", book.getTitle()), book.getDescription())
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(new Book(id, book.getTitle(), book.getDescription(), 0)));
+    }
+
+    /**
+     * Sets title and description and bumps the version, only if the book is still at
+     * {@code expectedVersion} when one is given.
+     *
+     * @return the number of rows updated
+     */
+    public Mono<Long> update(int id, Book details, Long expectedVersion) {
+        String sql = "UPDATE books SET title = :title, description = :description, version = version + 1 WHERE id = :id";
+        DatabaseClient.GenericExecuteSpec update = bindDescription(client.sql(expectedVersion == null ? sql : sql + " AND version = :version")
+                .bind("id", id)
+                .bind("title", details.getTitle()), details.getDescription());
+        if (expectedVersion != null) {
+            update = update.bind("version", expectedVersion);
+        }
+        return update.fetch().rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(int id) {
+        return client.sql("DELETE FROM books WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public void close() {
+        if (connectionFactory instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    private Mono<Integer> nextId() {
+        synchronized (this) {
+            if (nextId <= lastId) {
+                return Mono.just((int) nextId++);
+            }
+        }
+        return fetchSequenceValue().map(value -> {
+            synchronized (this) {
+                // a concurrent refill may have landed first; its unused ids are simply skipped
+                nextId = Math.max(1, value - ID_BLOCK + 1);
+                lastId = value;
+                return (int) nextId++;
+            }
+        });
+    }
+
+    private Mono<Long> fetchSequenceValue() {
+        if (nativeSequence) {
+            return client.sql("SELECT NEXT VALUE FOR book_seq")
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+        }
+        return client.sql("SELECT next_val FROM book_seq FOR UPDATE")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(value -> client.sql("UPDATE book_seq SET next_val = :next")
+                        .bind("next", value + ID_BLOCK)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(value))
+                .as(transactions::transactional);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindDescription(DatabaseClient.GenericExecuteSpec spec, String description) {
+        return description != null ? spec.bind("description", description) : spec.bindNull("description", String.class);
+    }
+
+    private static Book toBook(Readable row) {
+        return new Book(row.get("id", Integer.class), row.get("title", String.class),
+                row.get("description", String.class), row.get("version", Long.class));
+    }
+}
@@ -1,16 +1,67 @@
 package com.example.springjpa.repository;
 
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.metrics.Instrumented;
 import com.example.springjpa.model.Book;
+import com.example.springjpa.model.BookVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Integer> {
+@Instrumented("book.repository")
+public interface BookRepository extends JpaRepository<Book, Integer>, BookRepositoryCustom {
     Book findByDescription(String description);
 
-    @Query(value = "SELECT * FROM books WHERE LOWER(title) Like %:keyword%", nativeQuery = true)
-    List<Book> findByTitle(String title);
+    @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    List<Book> findByTitle(@Param("keyword") String keyword);
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") int id);
+
+    @Query(value = "SELECT new com.example.springjpa.model.BookVersion(b.id, b.version) FROM Book b",
+            countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookVersion> findVersions(Pageable pageable);
+
+    // pages for the API read straight into the response DTO: no entities registered in the persistence
+    // context, no dirty-checking snapshots, one object per row
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(value = "SELECT new com.example.springjpa.dto.BookResponse(b.id, b.title, b.description, b.version) FROM Book b",
+            countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookResponse> findResponses(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("SELECT new com.example.springjpa.dto.BookResponse(b.id, b.title, b.description, b.version)"
+            + " FROM Book b WHERE b.id > :id ORDER BY b.id")
+    List<BookResponse> findResponsesAfter(@Param("id") int id, Limit limit);
+
+    // unlike deleteById, these issue the DELETE directly instead of loading each entity first
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id = :id")
+    int removeById(@Param("id") int id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id IN :ids")
+    int removeByIdIn(@Param("ids") Collection<Integer> ids);
 }
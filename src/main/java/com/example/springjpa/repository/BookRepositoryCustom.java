@@ -0,0 +1,34 @@
+package com.example.springjpa.repository;
+
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface BookRepositoryCustom {
+
+    /**
+     * Title/description search ordered by relevance, then id, read straight into response DTOs.
+     * Any sort on the pageable is ignored.
+     */
+    Page<BookResponse> search(String query, Pageable pageable);
+
+    /**
+     * Forward-only scan of every book in id order, fetched {@code book.export.fetch-size} rows at a time.
+     * Books are detached as they are read so the persistence context does not grow. Must be
+     * consumed inside a transaction and closed afterwards.
+     */
+    Stream<Book> streamAll();
+
+    /**
+     * Sets the given columns (attribute name to value, null clears the column) and increments the
+     * version in a single {@code UPDATE}, provided the book is still at {@code expectedVersion}
+     * (any version when null). Must run inside a transaction.
+     *
+     * @return the number of rows updated: 0 when the book is missing or its version has moved on
+     */
+    int updateColumns(int id, Long expectedVersion, Map<String, Object> columns);
+}
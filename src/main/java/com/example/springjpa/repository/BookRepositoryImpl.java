@@ -0,0 +1,161 @@
+package com.example.springjpa.repository;
+
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * On MySQL, search uses a FULLTEXT index over title and description, created here if missing.
+ * Other databases (H2 in tests) fall back to a ranked LIKE scan.
+ */
+class BookRepositoryImpl implements BookRepositoryCustom, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BookRepositoryImpl.class);
+
+    private static final String FULLTEXT_INDEX = "ft_books_title_description";
+
+    private static final String MATCH = "MATCH(title, description) AGAINST (:query IN NATURAL LANGUAGE MODE)";
+
+    private static final String RESPONSE = "new com.example.springjpa.dto.BookResponse(b.id, b.title, b.description, b.version)";
+
+    private static final String LIKE_FILTER =
+            " WHERE LOWER(b.title) LIKE :contains ESCAPE '!' OR LOWER(b.description) LIKE :contains ESCAPE '!'";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final int exportFetchSize;
+    private boolean fullTextAvailable;
+
+    BookRepositoryImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                       @Value("${book.export.fetch-size:1000}") int exportFetchSize) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!(entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect)) {
+            return;
+        }
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics "
+                            + "WHERE table_schema = DATABASE() AND table_name = 'books' AND index_name = ?",
+                    Integer.class, FULLTEXT_INDEX);
+            if (existing == null || existing == 0) {
+                log.info("Creating FULLTEXT index {} on books", FULLTEXT_INDEX);
+                jdbcTemplate.execute("CREATE FULLTEXT INDEX " + FULLTEXT_INDEX + " ON books (title, description)");
+            }
+            fullTextAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("FULLTEXT index {} unavailable, search falls back to LIKE", FULLTEXT_INDEX, e);
+        }
+    }
+
+    @Override
+    public Page<BookResponse> search(String query, Pageable pageable) {
+        return fullTextAvailable
+                ? fullTextSearch(query, pageable)
+                : likeSearch(query, pageable);
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return entityManager.createQuery("SELECT b FROM Book b ORDER BY b.id", Book.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(book -> {
+                    entityManager.detach(book);
+                    return book;
+                });
+    }
+
+    @Override
+    public int updateColumns(int id, Long expectedVersion, Map<String, Object> columns) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+
+        columns.forEach(update::set);
+        Path<Long> version = book.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate where = cb.equal(book.get("id"), id);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(version, expectedVersion));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Page<BookResponse> fullTextSearch(String query, Pageable pageable) {
+        List<BookResponse> content = ((List<Object[]>) entityManager
+                .createNativeQuery("SELECT id, title, description, version FROM books WHERE " + MATCH
+                        + " ORDER BY " + MATCH + " DESC, id")
+                .setParameter("query", query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList())
+                .stream()
+                .map(row -> new BookResponse(((Number) row[0]).intValue(), (String) row[1], (String) row[2],
+                        ((Number) row[3]).longValue()))
+                .toList();
+        long total = ((Number) entityManager
+                .createNativeQuery("SELECT COUNT(*) FROM books WHERE " + MATCH)
+                .setParameter("query", query)
+                .getSingleResult()).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private Page<BookResponse> likeSearch(String query, Pageable pageable) {
+        String term = escapeLike(query.toLowerCase(Locale.ROOT));
+
+        // exact title, then title prefix, then title substring, then description-only matches
+        List<BookResponse> content = entityManager
+                .createQuery("SELECT " + RESPONSE + " FROM Book b" + LIKE_FILTER
+                        + " ORDER BY CASE WHEN LOWER(b.title) = :exact THEN 0"
+                        + " WHEN LOWER(b.title) LIKE :prefix ESCAPE '!' THEN 1"
+                        + " WHEN LOWER(b.title) LIKE :contains ESCAPE '!' THEN 2 ELSE 3 END, b.id", BookResponse.class)
+                .setParameter("exact", query.toLowerCase(Locale.ROOT))
+                .setParameter("prefix", term + "%")
+                .setParameter("contains", "%" + term + "%")
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        long total = entityManager
+                .createQuery("SELECT COUNT(b) FROM Book b" + LIKE_FILTER, Long.class)
+                .setParameter("contains", "%" + term + "%")
+                .getSingleResult();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.springjpa.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves book_seq past the ids already in the books table. Databases that handed out ids with
+ * IDENTITY before book_seq existed get a fresh sequence starting at 1, and their first inserts
+ * would collide with existing rows. The sequence is only ever raised, so running this on every
+ * startup is harmless.
+ * <p>
+ * Runs once the schema is in place (the EntityManagerFactory has been built), before requests are
+ * served and before {@link com.example.springjpa.service.BookWriteBehindService} starts flushing.
+ */
+@Component(BookSequenceInitializer.BEAN_NAME)
+public class BookSequenceInitializer implements InitializingBean {
+
+    public static final String BEAN_NAME = "bookSequenceInitializer";
+
+    private static final Logger log = LoggerFactory.getLogger(BookSequenceInitializer.class);
+
+    // allocationSize of book_seq, see Book
+    private static final int ID_BLOCK = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean sequenceTable;
+
+    public BookSequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL has no sequences, Hibernate keeps book_seq as a one-row table there
+        this.sequenceTable = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            raiseSequence();
+        } catch (DataAccessException e) {
+            // e.g. no database during the AppCDS training run; the next startup that reaches one raises it
+            log.warn("Could not move book_seq past the existing book ids", e);
+        }
+    }
+
+    private void raiseSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM books", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // the pooled optimizer hands out the ID_BLOCK ids up to the value it reads, so this makes MAX(id) + 1 the next
+        long next = maxId + ID_BLOCK;
+        if (sequenceTable) {
+            if (jdbcTemplate.update("UPDATE book_seq SET next_val = ? WHERE next_val < ?", next, next) > 0) {
+                log.info("Raised book_seq to {}, past the largest book id {}", next, maxId);
+            }
+            return;
+        }
+        Long current = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR book_seq", Long.class);
+        if (current != null && current < next) {
+            jdbcTemplate.execute("ALTER SEQUENCE book_seq RESTART WITH " + next);
+            log.info("Raised book_seq to {}, past the largest book id {}", next, maxId);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.springjpa.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket shared by every retried call. Each successful call deposits {@code ratio} of a token
+ * and each retry withdraws a whole one, so over time retries stay below that fraction of successful
+ * calls; the bucket holds at most {@code maxTokens}, so only recent successes count. When the
+ * database fails outright successes stop, the bucket drains and calls fail after their first attempt.
+ */
+public class RetryBudget {
+
+    // tokens are kept in thousandths so the bucket can be a single atomic long
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, double maxTokens) {
+        if (ratio < 0 || maxTokens < 1) {
+            throw new IllegalArgumentException("ratio must not be negative and maxTokens must be at least 1");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = Math.round(maxTokens * SCALE);
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void recordSuccess() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * @return whether a token was withdrawn for one more attempt
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getTokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.springjpa.retry;
+
+import com.example.springjpa.limit.OperationClass;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * Decides which failures are worth another attempt. Transient errors (lock and query timeouts,
+ * deadlocks, no connection available) leave nothing behind and are retried for every operation
+ * class. Recoverable ones (the connection dropped mid-call) are retried for reads only: a write may
+ * have committed before the connection went away. Version conflicts are never retried, the caller
+ * has to reload first.
+ */
+public final class TransientFailures {
+
+    private TransientFailures() {
+    }
+
+    public static boolean isRetryable(Throwable failure, OperationClass operationClass) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException) {
+                return false;
+            }
+            if (cause instanceof TransientDataAccessException || cause instanceof SQLTransientException) {
+                return true;
+            }
+            if (cause instanceof RecoverableDataAccessException || cause instanceof SQLRecoverableException) {
+                return operationClass == OperationClass.READ;
+            }
+        }
+        return false;
+    }
+}
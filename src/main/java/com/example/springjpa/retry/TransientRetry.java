@@ -0,0 +1,23 @@
+package com.example.springjpa.retry;
+
+import com.example.springjpa.limit.OperationClass;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries a call that failed with a transient database error, as classified by
+ * {@link TransientFailures} for its {@link OperationClass}, while the shared {@link RetryBudget} allows.
+ *
+ * @see TransientRetryInterceptor
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TransientRetry {
+
+    OperationClass value();
+}
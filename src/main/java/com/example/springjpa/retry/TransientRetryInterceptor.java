@@ -0,0 +1,102 @@
+package com.example.springjpa.retry;
+
+import com.example.springjpa.limit.OperationClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries {@link TransientRetry} methods on {@link TransientFailures transient} errors, up to
+ * {@code maxAttempts} in total. Before attempt n it sleeps a random time between zero and
+ * {@code initialBackoff * 2^(n-2)}, capped at {@code maxBackoff}, so callers that failed together
+ * do not come back together. Every retry needs a token from the {@link RetryBudget}; without one
+ * the last failure is rethrown at once.
+ * <p>
+ * Exports {@code book.retry.retries} and {@code book.retry.budget.exhausted} per {@code class}, and
+ * the {@code book.retry.budget.tokens} left.
+ */
+public class TransientRetryInterceptor implements MethodInterceptor {
+
+    private final RetryBudget budget;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<OperationClass, Meters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry resolved on the first call, so it can be created after the proxies that use it
+     */
+    public TransientRetryInterceptor(RetryBudget budget, int maxAttempts, Duration initialBackoff, Duration maxBackoff,
+                                     Supplier<MeterRegistry> meterRegistry) {
+        this.budget = budget;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        TransientRetry retry = AnnotationUtils.findAnnotation(invocation.getMethod(), TransientRetry.class);
+        if (retry == null) {
+            return invocation.proceed();
+        }
+        if (!(invocation instanceof ProxyMethodInvocation proxyInvocation)) {
+            throw new IllegalStateException("Retrying needs a ProxyMethodInvocation, got " + invocation.getClass().getName());
+        }
+        Meters callMeters = meters.computeIfAbsent(retry.value(), operationClass -> new Meters(operationClass, meterRegistry.get()));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // each attempt runs the rest of the chain, including the transaction, from a fresh copy
+                Object result = proxyInvocation.invocableClone().proceed();
+                budget.recordSuccess();
+                return result;
+            } catch (Throwable t) {
+                if (attempt >= maxAttempts || !TransientFailures.isRetryable(t, retry.value())) {
+                    throw t;
+                }
+                if (!budget.tryWithdraw()) {
+                    callMeters.budgetExhausted.increment();
+                    throw t;
+                }
+                callMeters.retries.increment();
+                try {
+                    Thread.sleep(backoff(attempt));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw t;
+                }
+            }
+        }
+    }
+
+    private long backoff(int failedAttempts) {
+        long ceiling = initialBackoff.toMillis() << Math.min(failedAttempts - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(ceiling, maxBackoff.toMillis()) + 1);
+    }
+
+    private class Meters {
+        private final Counter retries;
+        private final Counter budgetExhausted;
+
+        Meters(OperationClass operationClass, MeterRegistry meterRegistry) {
+            // the budget is shared, so the first operation class to be called registers its gauge
+            if (meterRegistry.find("book.retry.budget.tokens").gauge() == null) {
+                Gauge.builder("book.retry.budget.tokens", budget, RetryBudget::getTokens).register(meterRegistry);
+            }
+            this.retries = meterRegistry.counter("book.retry.retries", "class", operationClass.getTag());
+            this.budgetExhausted = meterRegistry.counter("book.retry.budget.exhausted", "class", operationClass.getTag());
+        }
+    }
+}
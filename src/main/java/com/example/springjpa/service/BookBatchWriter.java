@@ -0,0 +1,139 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.catalog.BooksWritten;
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.jpa.JpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Inserts books in chunks, one transaction per chunk. Each chunk is flushed as a
+ * JDBC batch and the persistence context is cleared so it never grows past one chunk.
+ */
+@Component
+public class BookBatchWriter {
+
+    private static final int MAX_LENGTH = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // the shared EntityManager is called directly, not through a @Repository proxy, so nothing else
+    // turns a failed flush into a DataAccessException
+    private final JpaDialect jpaDialect = new HibernateJpaDialect();
+
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final int chunkSize;
+
+    public BookBatchWriter(PlatformTransactionManager transactionManager, ApplicationEventPublisher events,
+                           @Value("${book.batch.chunk-size:500}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BookBatchResult> insertAll(List<Book> books) {
+        return insertAll(books, chunkSize);
+    }
+
+    public List<BookBatchResult> insertAll(List<Book> books, int chunkSize) {
+        BookBatchResult[] results = new BookBatchResult[books.size()];
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+
+        for (int i = 0; i < books.size(); i++) {
+            String error = validate(books.get(i));
+            if (error != null) {
+                results[i] = BookBatchResult.failed(i, error);
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == chunkSize) {
+                insertChunk(books, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(books, chunk, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Inserts all books in one transaction without validating them. Any failure rolls every row back
+     * and is rethrown, so the same books can be tried again later.
+     */
+    public void insertAllOrNothing(List<Book> books) {
+        persist(books, IntStream.range(0, books.size()).boxed().toList());
+    }
+
+    private void insertChunk(List<Book> books, List<Integer> indexes, BookBatchResult[] results) {
+        try {
+            persist(books, indexes);
+            for (int index : indexes) {
+                results[index] = BookBatchResult.created(index, books.get(index).getId());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // a bad row rolled back the whole chunk; retry row by row to find it
+            for (int index : indexes) {
+                try {
+                    persist(books, List.of(index));
+                    results[index] = BookBatchResult.created(index, books.get(index).getId());
+                } catch (DataAccessException rowError) {
+                    results[index] = BookBatchResult.failed(index, rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            for (int index : indexes) {
+                results[index] = BookBatchResult.failed(index, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void persist(List<Book> books, List<Integer> indexes) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int index : indexes) {
+                    entityManager.persist(books.get(index));
+                }
+                entityManager.flush();
+                entityManager.clear();
+                events.publishEvent(BooksWritten.of(indexes.stream().map(books::get).toList()));
+            });
+        } catch (RuntimeException e) {
+            // ids handed out to a rolled back chunk must not make the books look persisted
+            for (int index : indexes) {
+                books.get(index).setId(0);
+            }
+            DataAccessException translated = jpaDialect.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+
+    public static String validate(Book book) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            return "title is required";
+        }
+        if (book.getTitle().length() > MAX_LENGTH) {
+            return "title must be at most " + MAX_LENGTH + " characters";
+        }
+        if (book.getDescription() != null && book.getDescription().length() > MAX_LENGTH) {
+            return "description must be at most " + MAX_LENGTH + " characters";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.dto.BookImportError;
+import com.example.springjpa.dto.BookImportResult;
+import com.example.springjpa.dto.BookRequest;
+import com.example.springjpa.exception.MalformedRecordException;
+import com.example.springjpa.format.BookRecordReader;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.metrics.Instrumented;
+import com.example.springjpa.model.Book;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports an upload of any size: records are parsed one at a time and written in flushed,
+ * cleared batches, so memory use depends on the batch size rather than on the upload.
+ */
+@Service
+@Instrumented("book.service")
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private final BookBatchWriter batchWriter;
+    private final Counter importedRows;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BookImportService(BookBatchWriter batchWriter, MeterRegistry meterRegistry,
+                             @Value("${book.import.batch-size:1000}") int batchSize,
+                             @Value("${book.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.batchWriter = batchWriter;
+        this.importedRows = meterRegistry.counter("book.importBooks.rows");
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BookImportResult importBooks(BookRecordReader reader) throws IOException {
+        Progress progress = new Progress();
+        List<Book> batch = new ArrayList<>(batchSize);
+        long[] batchLines = new long[batchSize];
+
+        while (true) {
+            BookRequest request;
+            try {
+                request = reader.next();
+            } catch (MalformedRecordException e) {
+                progress.processed++;
+                progress.fail(reader.getLineNumber(), e.getMessage());
+                continue;
+            }
+            if (request == null) {
+                break;
+            }
+            batchLines[batch.size()] = reader.getLineNumber();
+            batch.add(BookMapper.toEntity(request));
+            if (batch.size() == batchSize) {
+                writeBatch(batch, batchLines, progress);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, batchLines, progress);
+        }
+
+        log.info("Import finished: {} processed, {} imported, {} failed",
+                progress.processed, progress.imported, progress.failed);
+        return new BookImportResult(progress.processed, progress.imported, progress.failed,
+                progress.errors, progress.failed > progress.errors.size());
+    }
+
+    private void writeBatch(List<Book> batch, long[] batchLines, Progress progress) {
+        int imported = 0;
+        for (BookBatchResult result : batchWriter.insertAll(batch, batchSize)) {
+            if (result.isSuccess()) {
+                imported++;
+            } else {
+                progress.fail(batchLines[result.getIndex()], result.getError());
+            }
+        }
+        progress.imported += imported;
+        progress.processed += batch.size();
+        importedRows.increment(imported);
+        log.debug("Import progress: {} processed, {} imported, {} failed",
+                progress.processed, progress.imported, progress.failed);
+        batch.clear();
+    }
+
+    private class Progress {
+        private long processed;
+        private long imported;
+        private long failed;
+        private final List<BookImportError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BookImportError(line, message));
+            }
+        }
+    }
+}
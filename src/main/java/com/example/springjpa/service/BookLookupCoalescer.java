@@ -0,0 +1,133 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-book lookups, optionally coalesced: concurrent lookups arriving within
+ * {@code book.coalescing.window} of each other share one {@code findAllById} query. The first
+ * caller of a batch waits out the window (or until the batch is full), runs the query on its own
+ * thread and hands every other caller its book. Disabled, it is a plain {@code findById}.
+ */
+@Component
+public class BookLookupCoalescer {
+
+    private final BookRepository repository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSize;
+    private final Timer addedWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch open;
+
+    public BookLookupCoalescer(BookRepository repository, MeterRegistry meterRegistry,
+                               @Value("${book.coalescing.enabled:false}") boolean enabled,
+                               @Value("${book.coalescing.window:2ms}") Duration window,
+                               @Value("${book.coalescing.max-batch-size:100}") int maxBatchSize) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("book.coalescer.batch.size")
+                .description("Distinct ids per coalesced query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.addedWait = Timer.builder("book.coalescer.wait")
+                .description("Time a lookup waited for its batch to be dispatched")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public Optional<Book> findById(int id) {
+        if (!enabled) {
+            return repository.findById(id);
+        }
+
+        long enqueued = System.nanoTime();
+        Batch batch;
+        CompletableFuture<Optional<Book>> result;
+        boolean leader = false;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = new Batch();
+                leader = true;
+            }
+            batch = open;
+            result = batch.add(id);
+            if (batch.books.size() >= maxBatchSize) {
+                open = null;
+                batch.full.countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            dispatch(batch);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            addedWait.record(batch.dispatchedAt - enqueued, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (open == batch) {
+                open = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        batch.dispatchedAt = System.nanoTime();
+        batchSize.record(batch.books.size());
+        try {
+            Map<Integer, Book> found = new LinkedHashMap<>();
+            for (Book book : repository.findAllById(batch.books.keySet())) {
+                found.put(book.getId(), book);
+            }
+            batch.books.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            batch.books.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static class Batch {
+        // guarded by the coalescer lock until the batch is closed, read only by the leader afterwards
+        private final Map<Integer, CompletableFuture<Optional<Book>>> books = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private volatile long dispatchedAt;
+
+        CompletableFuture<Optional<Book>> add(int id) {
+            return books.computeIfAbsent(id, key -> new CompletableFuture<>());
+        }
+    }
+}
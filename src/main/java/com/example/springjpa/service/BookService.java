@@ -1,122 +1,423 @@
 package com.example.springjpa.service;
 
+import com.example.springjpa.catalog.BookCatalog;
+import com.example.springjpa.catalog.BooksDeleted;
+import com.example.springjpa.catalog.BooksWritten;
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.limit.ConcurrencyLimited;
+import com.example.springjpa.limit.OperationClass;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.metrics.Instrumented;
+import com.example.springjpa.metrics.Outcome;
 import com.example.springjpa.model.Book;
+import com.example.springjpa.model.BookVersion;
 import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.retry.TransientRetry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Instrumented("book.service")
 public class BookService {
 
     private final BookRepository repository;
-    private final MeterRegistry meterRegistry;
+    private final BookBatchWriter batchWriter;
+    private final BookLookupCoalescer bookLookup;
+    private final CacheManager cacheManager;
+    private final BookCatalog catalog;
+    private final ApplicationEventPublisher events;
+    private final Counter exportedRows;
+    private final Counter createdRows;
+    private final Counter deletedRows;
+    private final int deleteChunkSize;
 
     @Autowired
-    public BookService(BookRepository repository, MeterRegistry meterRegistry) {
+    public BookService(BookRepository repository, BookBatchWriter batchWriter, BookLookupCoalescer bookLookup,
+                       CacheManager cacheManager, BookCatalog catalog, ApplicationEventPublisher events,
+                       MeterRegistry meterRegistry, @Value("${book.delete.chunk-size:1000}") int deleteChunkSize) {
         this.repository = repository;
-        this.meterRegistry = meterRegistry;
+        this.batchWriter = batchWriter;
+        this.bookLookup = bookLookup;
+        this.cacheManager = cacheManager;
+        this.catalog = catalog;
+        this.events = events;
+        this.exportedRows = meterRegistry.counter("book.exportBooks.rows");
+        this.createdRows = meterRegistry.counter("book.createBooks.rows");
+        this.deletedRows = meterRegistry.counter("book.deleteBooks.rows");
+        this.deleteChunkSize = deleteChunkSize;
     }
 
+    @ConcurrencyLimited(OperationClass.READ)
     @CircuitBreaker(name = "bookService", fallbackMethod = "getAllBooksFallback")
-    @Retry(name = "bookService")
-    public Page<Book> getAllBooks(Pageable pageable) {
-        meterRegistry.counter("book.getAllBooks.calls").increment();
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public Page<BookResponse> getAllBooks(Pageable pageable) {
+        return repository.findResponses(pageable);
+    }
+
+    @ConcurrencyLimited(OperationClass.READ)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "getBooksAfterFallback")
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public List<BookResponse> getBooksAfter(int afterId, int limit) {
+        return repository.findResponsesAfter(afterId, Limit.of(limit));
+    }
+
+    @ConcurrencyLimited(OperationClass.READ)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "searchBooksFallback")
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public Page<BookResponse> searchBooks(String query, Pageable pageable) {
+        return repository.search(query, pageable);
+    }
 
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            return repository.findAll(pageable);
+    // no retry or fallback: by the time a row fails, earlier rows have already been written out
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<Book> sink) {
+        long count = 0;
+        try (Stream<Book> books = repository.streamAll()) {
+            for (Book book : (Iterable<Book>) books::iterator) {
+                sink.accept(book);
+                count++;
+            }
+            return count;
         } finally {
-            sample.stop(meterRegistry.timer("book.getAllBooks.duration"));
+            exportedRows.increment(count);
         }
     }
 
+    // an answer from the catalog fallback is not cached, so the next read tries the database again.
+    // Not @Transactional: a transaction takes a pooled connection as it begins, so every coalesced lookup
+    // would hold one while it waits for its batch. The repository's own read-only transaction is enough
+    // for replica routing.
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id",
+            unless = "#result == null || T(com.example.springjpa.catalog.BookCatalog).isStale()")
+    @ConcurrencyLimited(OperationClass.READ)
     @CircuitBreaker(name = "bookService", fallbackMethod = "getBookByIdFallback")
-    @Retry(name = "bookService")
+    @TransientRetry(OperationClass.READ)
     public Optional<Book> getBookById(int id) {
-        meterRegistry.counter("book.getBookById.calls").increment();
+        return bookLookup.findById(id);
+    }
 
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            return repository.findById(id);
-        } finally {
-            sample.stop(meterRegistry.timer("book.getBookById.duration"));
+    /**
+     * Current version of a book for conditional requests: taken from the cache when the book is
+     * there, otherwise read on its own without loading the entity.
+     */
+    @ConcurrencyLimited(OperationClass.READ)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "getBookVersionFallback")
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public OptionalLong getBookVersion(int id) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Book cached = cache != null ? cache.get(id, Book.class) : null;
+        if (cached != null) {
+            return OptionalLong.of(cached.getVersion());
         }
+        return repository.findVersionById(id).map(OptionalLong::of).orElse(OptionalLong.empty());
     }
 
+    @ConcurrencyLimited(OperationClass.READ)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "getBookVersionsFallback")
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public Page<BookVersion> getBookVersions(Pageable pageable) {
+        return repository.findVersions(pageable);
+    }
+
+    /**
+     * Books for the given ids in request order, missing ids skipped. Cached books are used as they
+     * are; the rest are read with one IN query and cached.
+     */
+    @ConcurrencyLimited(OperationClass.READ)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "getBooksByIdsFallback")
+    @TransientRetry(OperationClass.READ)
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByIds(Collection<Integer> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Map<Integer, Book> books = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (int id : new LinkedHashSet<>(ids)) {
+            Book cached = cache != null ? cache.get(id, Book.class) : null;
+            if (cached != null) {
+                books.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (Book book : repository.findAllById(misses)) {
+                books.put(book.getId(), book);
+                if (cache != null) {
+                    cache.put(book.getId(), book);
+                }
+            }
+        }
+        return ids.stream().distinct().map(books::get).filter(Objects::nonNull).toList();
+    }
+
+    @CachePut(cacheNames = CacheConfig.BOOKS_CACHE, key = "#result.id")
+    @ConcurrencyLimited(OperationClass.WRITE)
     @CircuitBreaker(name = "bookService", fallbackMethod = "createBookFallback")
-    @Retry(name = "bookService")
+    @TransientRetry(OperationClass.WRITE)
     public Book createBook(Book book) {
-        meterRegistry.counter("book.createBook.calls").increment();
+        Book saved = repository.save(book);
+        events.publishEvent(BooksWritten.of(saved));
+        return saved;
+    }
 
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            return repository.save(book);
-        } finally {
-            sample.stop(meterRegistry.timer("book.createBook.duration"));
-        }
+    // no retry: chunks that already committed would be inserted twice
+    @ConcurrencyLimited(OperationClass.WRITE)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "createBooksFallback")
+    public List<BookBatchResult> createBooks(List<Book> books) {
+        List<BookBatchResult> results = batchWriter.insertAll(books);
+        createdRows.increment(results.stream().filter(BookBatchResult::isSuccess).count());
+        return results;
     }
 
+    /**
+     * Replaces title and description in a single UPDATE. With an expected version the new state is
+     * fully known, so nothing is read back.
+     *
+     * @throws OptimisticLockingFailureException if the book exists but is no longer at {@code expectedVersion}
+     */
+    @Caching(put = @CachePut(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.BOOK_RESPONSES_CACHE, key = "#id"))
+    @ConcurrencyLimited(OperationClass.WRITE)
     @CircuitBreaker(name = "bookService", fallbackMethod = "updateBookFallback")
-    @Retry(name = "bookService")
-    public Optional<Book> updateBook(int id, Book bookDetails) {
-        meterRegistry.counter("book.updateBook.calls").increment();
-
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            return repository.findById(id)
-                    .map(existingBook -> {
-                        existingBook.setTitle(bookDetails.getTitle());
-                        existingBook.setDescription(bookDetails.getDescription());
-                        return repository.save(existingBook);
-                    });
-        } finally {
-            sample.stop(meterRegistry.timer("book.updateBook.duration")); // stop timing
+    @TransientRetry(OperationClass.WRITE)
+    @Transactional
+    public Optional<Book> updateBook(int id, Book bookDetails, Long expectedVersion) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("title", bookDetails.getTitle());
+        columns.put("description", bookDetails.getDescription());
+        if (!updateColumns(id, expectedVersion, columns)) {
+            return Optional.empty();
+        }
+        Optional<Book> updated = expectedVersion != null
+                ? Optional.of(new Book(id, bookDetails.getTitle(), bookDetails.getDescription(), expectedVersion + 1))
+                : repository.findById(id);
+        updated.ifPresent(book -> events.publishEvent(BooksWritten.of(book)));
+        return updated;
+    }
+
+    /**
+     * Writes only the non-null fields of {@code changes} in a single UPDATE, then reads the book back.
+     *
+     * @throws OptimisticLockingFailureException if the book exists but is no longer at {@code expectedVersion}
+     */
+    @Caching(put = @CachePut(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.BOOK_RESPONSES_CACHE, key = "#id"))
+    @ConcurrencyLimited(OperationClass.WRITE)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "patchBookFallback")
+    @TransientRetry(OperationClass.WRITE)
+    @Transactional
+    public Optional<Book> patchBook(int id, Book changes, Long expectedVersion) {
+        Map<String, Object> columns = new HashMap<>();
+        if (changes.getTitle() != null) {
+            columns.put("title", changes.getTitle());
+        }
+        if (changes.getDescription() != null) {
+            columns.put("description", changes.getDescription());
+        }
+        if (columns.isEmpty()) {
+            return repository.findById(id).map(book -> checkVersion(book, expectedVersion));
+        }
+        if (!updateColumns(id, expectedVersion, columns)) {
+            return Optional.empty();
+        }
+        Optional<Book> patched = repository.findById(id);
+        patched.ifPresent(book -> events.publishEvent(BooksWritten.of(book)));
+        return patched;
+    }
+
+    private boolean updateColumns(int id, Long expectedVersion, Map<String, Object> columns) {
+        if (repository.updateColumns(id, expectedVersion, columns) == 1) {
+            return true;
+        }
+        // nothing matched: either the book is gone or someone else updated it first
+        if (expectedVersion != null && repository.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, id);
+        }
+        return false;
+    }
+
+    private Book checkVersion(Book book, Long expectedVersion) {
+        if (expectedVersion != null && book.getVersion() != expectedVersion) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, book.getId());
         }
+        return book;
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.BOOKS_CACHE, CacheConfig.BOOK_RESPONSES_CACHE}, key = "#id")
+    @ConcurrencyLimited(OperationClass.WRITE)
     @CircuitBreaker(name = "bookService", fallbackMethod = "deleteBookFallback")
-    @Retry(name = "bookService")
+    @TransientRetry(OperationClass.WRITE)
     public boolean deleteBook(int id) {
-        meterRegistry.counter("book.deleteBook.calls").increment();
-
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            Optional<Book> book = repository.findById(id);
-            if (book.isPresent()) {
-                repository.deleteById(id);
-                return true;
-            }
+        if (repository.removeById(id) != 1) {
             return false;
-        } finally {
-            sample.stop(meterRegistry.timer("book.deleteBook.duration")); // stop timing
         }
+        events.publishEvent(BooksDeleted.of(List.of(id)));
+        return true;
+    }
+
+    /**
+     * Deletes the given books with one DELETE per chunk of ids, all in one transaction so a retry
+     * starts from scratch. Ids that do not exist are skipped.
+     *
+     * @return the number of books deleted
+     */
+    @ConcurrencyLimited(OperationClass.WRITE)
+    @CircuitBreaker(name = "bookService", fallbackMethod = "deleteBooksFallback")
+    @TransientRetry(OperationClass.WRITE)
+    @Transactional
+    public int deleteBooks(Collection<Integer> ids) {
+        List<Integer> unique = List.copyOf(new LinkedHashSet<>(ids));
+        int deleted = 0;
+        for (int from = 0; from < unique.size(); from += deleteChunkSize) {
+            deleted += repository.removeByIdIn(unique.subList(from, Math.min(from + deleteChunkSize, unique.size())));
+        }
+        deletedRows.increment(deleted);
+        evictAfterCommit(unique);
+        events.publishEvent(BooksDeleted.of(unique));
+        return deleted;
+    }
+
+    private void evictAfterCommit(List<Integer> ids) {
+        List<Cache> caches = Stream.of(CacheConfig.BOOKS_CACHE, CacheConfig.BOOK_RESPONSES_CACHE)
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            caches.forEach(cache -> ids.forEach(cache::evict));
+            return;
+        }
+        // evicting before the commit would let a concurrent read cache a row that is about to disappear
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                caches.forEach(cache -> ids.forEach(cache::evict));
+            }
+        });
     }
 
-    private Page<Book> getAllBooksFallback(Pageable pageable, Throwable t) {
+    // read fallbacks answer from the catalog when it is loaded, flagged as stale
+    private Page<BookResponse> getAllBooksFallback(Pageable pageable, Throwable t) {
+        Outcome.recordFallback(t);
+        if (catalog.isLoaded() && BookCatalog.supports(pageable)) {
+            catalog.markStale();
+            return catalog.findAll(pageable).map(BookMapper::toResponse);
+        }
+        return Page.empty(pageable);
+    }
+
+    private List<BookResponse> getBooksAfterFallback(int afterId, int limit, Throwable t) {
+        Outcome.recordFallback(t);
+        if (catalog.isLoaded()) {
+            catalog.markStale();
+            return catalog.findAfter(afterId, limit).stream().map(BookMapper::toResponse).toList();
+        }
+        return List.of();
+    }
+
+    private Page<BookResponse> searchBooksFallback(String query, Pageable pageable, Throwable t) {
+        Outcome.recordFallback(t);
         return Page.empty(pageable);
     }
 
     private Optional<Book> getBookByIdFallback(int id, Throwable t) {
+        Outcome.recordFallback(t);
+        if (catalog.isLoaded()) {
+            catalog.markStale();
+            return catalog.findById(id);
+        }
         return Optional.empty();
     }
 
+    private OptionalLong getBookVersionFallback(int id, Throwable t) {
+        Outcome.recordFallback(t);
+        return OptionalLong.empty();
+    }
+
+    private Page<BookVersion> getBookVersionsFallback(Pageable pageable, Throwable t) {
+        Outcome.recordFallback(t);
+        return Page.empty(pageable);
+    }
+
+    private List<Book> getBooksByIdsFallback(Collection<Integer> ids, Throwable t) {
+        Outcome.recordFallback(t);
+        if (catalog.isLoaded()) {
+            catalog.markStale();
+            return catalog.findAllById(ids);
+        }
+        return List.of();
+    }
+
     private Book createBookFallback(Book book, Throwable t) {
+        Outcome.recordFallback(t);
         throw new RuntimeException("Unable to create book at this time", t);
     }
 
-    private Optional<Book> updateBookFallback(int id, Book bookDetails, Throwable t) {
+    private List<BookBatchResult> createBooksFallback(List<Book> books, Throwable t) {
+        Outcome.recordFallback(t);
+        throw new RuntimeException("Unable to create books at this time", t);
+    }
+
+    private Optional<Book> updateBookFallback(int id, Book bookDetails, Long expectedVersion, Throwable t) {
+        if (t instanceof OptimisticLockingFailureException conflict) {
+            throw conflict;
+        }
+        Outcome.recordFallback(t);
+        return Optional.empty();
+    }
+
+    private Optional<Book> patchBookFallback(int id, Book changes, Long expectedVersion, Throwable t) {
+        if (t instanceof OptimisticLockingFailureException conflict) {
+            throw conflict;
+        }
+        Outcome.recordFallback(t);
         return Optional.empty();
     }
 
     private boolean deleteBookFallback(int id, Throwable t) {
+        Outcome.recordFallback(t);
         return false;
     }
+
+    private int deleteBooksFallback(Collection<Integer> ids, Throwable t) {
+        Outcome.recordFallback(t);
+        throw new RuntimeException("Unable to delete books at this time", t);
+    }
 }
@@ -0,0 +1,309 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.exception.InvalidBookException;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookSequenceInitializer;
+import com.example.springjpa.writebehind.WriteBehindLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous creates: books are validated, appended to a local {@link WriteBehindLog} and
+ * acknowledged once the log has been synced to disk. A background flusher inserts them in batches;
+ * after a restart it picks up whatever was not flushed. A batch the database refuses because of one
+ * bad row is inserted row by row so only the rows violating a constraint are dropped; any other
+ * database error, in either pass, leaves the batch in the log for the next attempt. Dropped rows are recorded in a {@code rejected} file next
+ * to the log, so their tokens report the database's error instead of being written, across restarts.
+ */
+@Service
+// the flusher inserts as soon as it starts, so book_seq must be past the existing ids by then
+@DependsOn(BookSequenceInitializer.BEAN_NAME)
+public class BookWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteBehindService.class);
+    private static final Duration SYNC_TIMEOUT = Duration.ofSeconds(5);
+    private static final String REJECTED = "rejected";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final BookBatchWriter batchWriter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path directory;
+    private final DataSize segmentSize;
+    private final Duration fsyncInterval;
+    private final Duration flushInterval;
+    private final int flushBatchSize;
+    private final Counter acceptedRows;
+    private final Counter flushedRows;
+    private final Counter rejectedRows;
+    private final Timer syncTimer;
+    private final Timer flushTimer;
+    private final Map<Long, String> rejected = new ConcurrentHashMap<>();
+    // rows of an aborted row-by-row pass that were inserted; the retry of their batch skips them
+    private final Set<Long> insertedAhead = ConcurrentHashMap.newKeySet();
+
+    private WriteBehindLog writeLog;
+    private ScheduledExecutorService scheduler;
+
+    public BookWriteBehindService(BookBatchWriter batchWriter, MeterRegistry meterRegistry,
+                                  @Value("${book.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${book.write-behind.directory:data/write-behind}") Path directory,
+                                  @Value("${book.write-behind.segment-size:64MB}") DataSize segmentSize,
+                                  @Value("${book.write-behind.fsync-interval:5ms}") Duration fsyncInterval,
+                                  @Value("${book.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                  @Value("${book.write-behind.flush-batch-size:1000}") int flushBatchSize) {
+        this.batchWriter = batchWriter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncInterval = fsyncInterval;
+        this.flushInterval = flushInterval;
+        this.flushBatchSize = flushBatchSize;
+        this.acceptedRows = meterRegistry.counter("book.write-behind.accepted");
+        this.flushedRows = meterRegistry.counter("book.write-behind.flushed");
+        this.rejectedRows = meterRegistry.counter("book.write-behind.rejected");
+        this.syncTimer = meterRegistry.timer("book.write-behind.fsync");
+        this.flushTimer = meterRegistry.timer("book.write-behind.flush");
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        writeLog = WriteBehindLog.open(directory, (int) segmentSize.toBytes());
+        loadRejected();
+        Gauge.builder("book.write-behind.queue.depth", writeLog, l -> l.lastAppended() - l.lastFlushed())
+                .register(meterRegistry);
+        TimeGauge.builder("book.write-behind.lag", writeLog, TimeUnit.MILLISECONDS, l -> {
+            long oldest = l.oldestUnflushedAt();
+            return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+        }).register(meterRegistry);
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "book-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> syncTimer.record(writeLog::sync),
+                fsyncInterval.toNanos(), fsyncInterval.toNanos(), TimeUnit.NANOSECONDS);
+        // the first run replays whatever an earlier process left unflushed
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, 0, flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        writeLog.sync();
+        flushQuietly();
+        writeLog.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Durably queues the book for insertion.
+     *
+     * @return a token for {@link #isWritten(long)}
+     */
+    public long accept(Book book) {
+        String error = BookBatchWriter.validate(book);
+        if (error != null) {
+            throw new InvalidBookException(error);
+        }
+        try {
+            long token = writeLog.append(encode(book));
+            if (!writeLog.awaitSynced(token, SYNC_TIMEOUT)) {
+                throw new IllegalStateException("Write-behind log was not synced within " + SYNC_TIMEOUT);
+            }
+            acceptedRows.increment();
+            return token;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind log", e);
+        }
+    }
+
+    public boolean isKnown(long token) {
+        return enabled && token > 0 && token <= writeLog.lastAppended();
+    }
+
+    public boolean isWritten(long token) {
+        return token <= writeLog.lastFlushed() && !rejected.containsKey(token);
+    }
+
+    /**
+     * @return the database's error for a book the flusher had to drop, or null
+     */
+    public String rejection(long token) {
+        return rejected.get(token);
+    }
+
+    void flush() throws IOException {
+        while (true) {
+            WriteBehindLog.Batch batch = writeLog.readUnflushed(flushBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<WriteBehindLog.Entry> pending = batch.entries().stream()
+                    .filter(entry -> !insertedAhead.contains(entry.sequence()))
+                    .toList();
+            List<Book> books = pending.stream().map(entry -> decode(entry.payload())).toList();
+            long start = System.nanoTime();
+            Map<Long, String> refused = new LinkedHashMap<>();
+            try {
+                if (!books.isEmpty()) {
+                    batchWriter.insertAllOrNothing(books);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // only rows the database refuses as such are dropped; any other error aborts the pass
+                for (int i = 0; i < books.size(); i++) {
+                    long sequence = pending.get(i).sequence();
+                    try {
+                        batchWriter.insertAllOrNothing(List.of(books.get(i)));
+                        insertedAhead.add(sequence);
+                    } catch (DataIntegrityViolationException rowError) {
+                        refused.put(sequence, rowError.getMostSpecificCause().getMessage());
+                    } catch (DataAccessException rowError) {
+                        log.warn("Flushing {} books from the write-behind log row by row failed, will retry: {}",
+                                books.size(), rowError.getMessage());
+                        return;
+                    }
+                }
+            } catch (DataAccessException e) {
+                log.warn("Flushing {} books from the write-behind log failed, will retry: {}", books.size(), e.getMessage());
+                return;
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // recorded before the commit: a crash in between replays the batch, which rejects them again
+            recordRejected(refused);
+            int size = batch.entries().size();
+            rejectedRows.increment(refused.size());
+            flushedRows.increment(size - refused.size());
+            writeLog.commit(batch);
+            insertedAhead.clear();
+            if (size < flushBatchSize) {
+                return;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            // an exception would cancel the scheduled task
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    private void recordRejected(Map<Long, String> refused) throws IOException {
+        if (refused.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Map.Entry<Long, String> entry : refused.entrySet()) {
+                String error = entry.getValue() == null ? "rejected by the database" : entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeUTF(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(REJECTED), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(false);
+        }
+        log.warn("Dropped {} books from the write-behind log that the database rejected: {}", refused.size(), refused);
+        rejected.putAll(refused);
+    }
+
+    private void loadRejected() throws IOException {
+        Path file = directory.resolve(REJECTED);
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int valid = 0;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            while (valid < bytes.length) {
+                long sequence = in.readLong();
+                String error = in.readUTF();
+                rejected.put(sequence, error);
+                valid = bytes.length - in.available();
+            }
+        } catch (EOFException e) {
+            // a record torn by a crash; its batch was not committed and is rejected again on replay
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+    private static byte[] encode(Book book) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(book.getTitle());
+            out.writeBoolean(book.getDescription() != null);
+            if (book.getDescription() != null) {
+                out.writeUTF(book.getDescription());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Book decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String title = in.readUTF();
+            String description = in.readBoolean() ? in.readUTF() : null;
+            return new Book(0, title, description);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
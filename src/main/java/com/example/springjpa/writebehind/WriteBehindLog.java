@@ -0,0 +1,392 @@
+package com.example.springjpa.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque entries in memory-mapped segment files, numbered by a sequence that
+ * keeps counting across segments and restarts.
+ * <p>
+ * Appends only write to the mapping; {@link #sync()} forces everything appended since the last
+ * call to disk in one go, so callers that need durability append and then
+ * {@link #awaitSynced(long, Duration) wait} for the next sync. Synced entries are handed out in
+ * order by {@link #readUnflushed(int)} and, once stored elsewhere, {@link #commit(Batch) committed}:
+ * the last committed sequence is checkpointed and segments holding only committed entries are
+ * deleted. After a restart reading resumes after the checkpoint, so an entry is delivered at least
+ * once; a torn record at the end of the last segment is discarded.
+ * <p>
+ * Record layout: int payload length, int CRC32 of the rest, long sequence, long append time in
+ * epoch millis, payload. A zero length marks the end of a segment.
+ */
+public class WriteBehindLog implements Closeable {
+
+    private static final int HEADER_SIZE = 24;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    // guarded by lock
+    private Segment active;
+    private int writePosition;
+    private int syncedPosition;
+    private long lastAppended;
+
+    private volatile long lastSynced;
+    private volatile Cursor flushed;
+
+    private WriteBehindLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public record Entry(long sequence, long appendedAt, byte[] payload) {
+    }
+
+    /**
+     * Entries read by {@link #readUnflushed(int)}, to be passed to {@link #commit(Batch)} once stored.
+     */
+    public static final class Batch {
+
+        private final List<Entry> entries;
+        private final Cursor end;
+
+        private Batch(List<Entry> entries, Cursor end) {
+            this.entries = entries;
+            this.end = end;
+        }
+
+        public List<Entry> entries() {
+            return entries;
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+    }
+
+    // position of the first entry after sequence
+    private record Cursor(long sequence, Segment segment, int position) {
+    }
+
+    private static final class Segment {
+
+        final long firstSequence;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long firstSequence, Path path, int size) throws IOException {
+            this.firstSequence = firstSequence;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+    }
+
+    public static WriteBehindLog open(Path directory, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        WriteBehindLog log = new WriteBehindLog(directory, segmentSize);
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        long checkpoint = readCheckpoint();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long first = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(first, new Segment(first, file, segmentSize));
+            }
+        }
+        if (segments.isEmpty()) {
+            active = createSegment(checkpoint + 1);
+            lastAppended = checkpoint;
+        } else {
+            active = segments.lastEntry().getValue();
+            long sequence = active.firstSequence;
+            int position = 0;
+            // stops at the end of the data or at a torn record, which the next append overwrites
+            for (Entry entry; (entry = readAt(active, position, sequence)) != null; sequence++) {
+                position += HEADER_SIZE + entry.payload().length;
+            }
+            writePosition = position;
+            lastAppended = sequence - 1;
+        }
+        syncedPosition = writePosition;
+        lastSynced = lastAppended;
+        flushed = locate(Math.min(checkpoint, lastAppended));
+        deleteSegmentsBefore(flushed.segment());
+    }
+
+    private Cursor locate(long sequence) {
+        Map.Entry<Long, Segment> floor = segments.floorEntry(sequence + 1);
+        Segment segment = floor != null ? floor.getValue() : segments.firstEntry().getValue();
+        long next = segment.firstSequence;
+        int position = 0;
+        while (next <= sequence) {
+            Entry entry = readAt(segment, position, next);
+            if (entry == null) {
+                break;
+            }
+            position += HEADER_SIZE + entry.payload().length;
+            next++;
+        }
+        return new Cursor(next - 1, segment, position);
+    }
+
+    /**
+     * Appends an entry to the mapping; it is durable once {@link #awaitSynced(long, Duration)} returns true.
+     *
+     * @return the entry's sequence number
+     */
+    public long append(byte[] payload) throws IOException {
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Entry of " + payload.length + " bytes does not fit a segment");
+        }
+        lock.lock();
+        try {
+            if (writePosition + size > active.capacity()) {
+                roll();
+            }
+            long sequence = lastAppended + 1;
+            long appendedAt = System.currentTimeMillis();
+            ByteBuffer buffer = active.buffer;
+            int position = writePosition;
+            buffer.putLong(position + 8, sequence);
+            buffer.putLong(position + 16, appendedAt);
+            buffer.put(position + HEADER_SIZE, payload);
+            buffer.putInt(position + 4, checksum(sequence, appendedAt, payload));
+            buffer.putInt(position, payload.length);
+            writePosition += size;
+            lastAppended = sequence;
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void roll() throws IOException {
+        active.buffer.force();
+        syncedPosition = writePosition;
+        lastSynced = lastAppended;
+        synced.signalAll();
+        active = createSegment(lastAppended + 1);
+        writePosition = 0;
+        syncedPosition = 0;
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        Segment segment = new Segment(firstSequence,
+                directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX)), segmentSize);
+        segments.put(firstSequence, segment);
+        return segment;
+    }
+
+    /**
+     * Forces every entry appended so far to disk and wakes up the appenders waiting for it.
+     */
+    public void sync() {
+        Segment segment;
+        int from;
+        int to;
+        long sequence;
+        lock.lock();
+        try {
+            if (lastAppended == lastSynced) {
+                return;
+            }
+            segment = active;
+            from = syncedPosition;
+            to = writePosition;
+            sequence = lastAppended;
+        } finally {
+            lock.unlock();
+        }
+        // appends carry on while the range is forced; they are picked up by the next sync
+        segment.buffer.force(from, to - from);
+        lock.lock();
+        try {
+            if (segment == active && to > syncedPosition) {
+                syncedPosition = to;
+            }
+            if (sequence > lastSynced) {
+                lastSynced = sequence;
+            }
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitSynced(long sequence, Duration timeout) throws InterruptedException {
+        if (lastSynced >= sequence) {
+            return true;
+        }
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (lastSynced < sequence) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = synced.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code max} synced entries following the last committed one. Only one thread may commit.
+     */
+    public Batch readUnflushed(int max) {
+        long limit = lastSynced;
+        Cursor cursor = flushed;
+        Segment segment = cursor.segment();
+        int position = cursor.position();
+        long next = cursor.sequence() + 1;
+        List<Entry> entries = new ArrayList<>();
+        while (entries.size() < max && next <= limit) {
+            Entry entry = readAt(segment, position, next);
+            if (entry == null) {
+                Map.Entry<Long, Segment> following = segments.higherEntry(segment.firstSequence);
+                if (following == null) {
+                    break;
+                }
+                segment = following.getValue();
+                position = 0;
+                continue;
+            }
+            entries.add(entry);
+            position += HEADER_SIZE + entry.payload().length;
+            next++;
+        }
+        return new Batch(entries, new Cursor(next - 1, segment, position));
+    }
+
+    /**
+     * Marks the batch as stored: the checkpoint moves past it and fully committed segments are deleted.
+     */
+    public void commit(Batch batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        writeCheckpoint(batch.end.sequence());
+        flushed = batch.end;
+        deleteSegmentsBefore(batch.end.segment());
+    }
+
+    public long lastAppended() {
+        lock.lock();
+        try {
+            return lastAppended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastFlushed() {
+        return flushed.sequence();
+    }
+
+    /**
+     * Append time of the oldest synced entry not yet committed, or 0 when there is none.
+     */
+    public long oldestUnflushedAt() {
+        Cursor cursor = flushed;
+        if (cursor.sequence() >= lastSynced) {
+            return 0;
+        }
+        Batch next = readUnflushed(1);
+        return next.isEmpty() ? 0 : next.entries().get(0).appendedAt();
+    }
+
+    private Entry readAt(Segment segment, int position, long expectedSequence) {
+        ByteBuffer buffer = segment.buffer;
+        if (position + HEADER_SIZE > segment.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > segment.capacity()) {
+            return null;
+        }
+        long sequence = buffer.getLong(position + 8);
+        if (sequence != expectedSequence) {
+            return null;
+        }
+        long appendedAt = buffer.getLong(position + 16);
+        byte[] payload = new byte[length];
+        buffer.get(position + HEADER_SIZE, payload);
+        if (buffer.getInt(position + 4) != checksum(sequence, appendedAt, payload)) {
+            return null;
+        }
+        return new Entry(sequence, appendedAt, payload);
+    }
+
+    private static int checksum(long sequence, long appendedAt, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putLong(sequence).putLong(appendedAt).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        return Files.exists(file) ? ByteBuffer.wrap(Files.readAllBytes(file)).getLong() : 0;
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(sequence).flip());
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteSegmentsBefore(Segment keep) throws IOException {
+        for (Segment segment : List.copyOf(segments.headMap(keep.firstSequence).values())) {
+            segments.remove(segment.firstSequence);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+}
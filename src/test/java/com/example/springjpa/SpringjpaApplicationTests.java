@@ -1,13 +1,37 @@
 package com.example.springjpa;
 
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
+@ActiveProfiles("test")
 class SpringjpaApplicationTests {
 
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void repositoryCallsAreTimed() {
+		bookRepository.count();
+
+		assertThat(meterRegistry.get("book.repository")
+				.tags("operation", "count", "outcome", "success")
+				.timer()
+				.count())
+				.isEqualTo(1);
+	}
+
 }
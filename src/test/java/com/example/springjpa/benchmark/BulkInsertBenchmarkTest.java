@@ -0,0 +1,76 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows/sec of one-by-one {@code createBook} calls against chunked, JDBC-batched
+ * {@code createBooks}. Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkInsertBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void compareOneByOneAndBatchedInserts() {
+        // warm up both paths
+        books(500).forEach(bookService::createBook);
+        bookService.createBooks(books(500));
+        repository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        for (Book book : books(ROWS)) {
+            bookService.createBook(book);
+        }
+        double oneByOne = rowsPerSecond(start);
+
+        start = System.nanoTime();
+        List<BookBatchResult> results = bookService.createBooks(books(ROWS));
+        double batched = rowsPerSecond(start);
+
+        assertThat(results).allMatch(BookBatchResult::isSuccess);
+        assertThat(repository.count()).isEqualTo(2L * ROWS);
+
+        System.out.printf("%n%-12s %12s%n%-12s %12.0f%n%-12s %12.0f%n",
+                "mode", "rows/sec", "one-by-one", oneByOne, "batched", batched);
+    }
+
+    private double rowsPerSecond(long start) {
+        return ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(0, "Title " + i, "Description " + i));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.loadtest.DatabaseLatencyConfig;
+import com.example.springjpa.loadtest.LoadDriver;
+import com.example.springjpa.loadtest.LoadMix;
+import com.example.springjpa.loadtest.LoadReport;
+import com.example.springjpa.loadtest.LoadResult;
+import com.example.springjpa.loadtest.LoadThresholds;
+import com.example.springjpa.loadtest.NamedValues;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.service.BookBatchWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a weighted mix of the five book endpoints (list, get, create, update, delete) with many
+ * concurrent clients against the application on the embedded database. Prints requests/sec and
+ * p50/p95/p99/max per endpoint, writes them to {@code loadtest.report} and fails when a threshold
+ * is crossed. Run with {@code mvn -Pbenchmark test -Dtest=EndpointLoadBenchmarkTest}; every
+ * {@code loadtest.*} property below can be overridden with {@code -D}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(DatabaseLatencyConfig.class)
+class EndpointLoadBenchmarkTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookBatchWriter batchWriter;
+
+    @Value("${loadtest.clients:100}")
+    int clients;
+
+    @Value("${loadtest.warmup-seconds:5}")
+    int warmupSeconds;
+
+    @Value("${loadtest.duration-seconds:20}")
+    int durationSeconds;
+
+    @Value("${loadtest.books:1000}")
+    int books;
+
+    @Value("${loadtest.deletable-books:20000}")
+    int deletableBooks;
+
+    @Value("${loadtest.mix:list=40,get=40,create=10,update=5,delete=5}")
+    String mix;
+
+    @Value("${loadtest.max-error-rate:0.001}")
+    double maxErrorRate;
+
+    @Value("${loadtest.min-rps:0}")
+    double minRequestsPerSecond;
+
+    @Value("${loadtest.max-p99-ms:list=2000,get=2000,create=2000,update=2000,delete=2000}")
+    String maxP99Ms;
+
+    @Value("${loadtest.db-latency-ms:0}")
+    long dbLatencyMillis;
+
+    @Value("${loadtest.report:target/loadtest/endpoint-load.tsv}")
+    Path report;
+
+    @Test
+    void endpointMix() throws Exception {
+        int[] readable = seed(books, "Book");
+        int[] deletable = seed(deletableBooks, "Disposable");
+        AtomicInteger nextDeletion = new AtomicInteger();
+
+        Map<String, Integer> weights = NamedValues.parse(mix, Integer::valueOf);
+        LoadMix loadMix = new LoadMix()
+                .add("list", weights.getOrDefault("list", 0),
+                        () -> get("/api/v1/books?page=" + random(books / 10) + "&size=10"))
+                .add("get", weights.getOrDefault("get", 0),
+                        () -> get("/api/v1/books/" + readable[random(readable.length)]))
+                .add("create", weights.getOrDefault("create", 0),
+                        () -> send("POST", "/api/v1/books", body("Created")))
+                .add("update", weights.getOrDefault("update", 0),
+                        () -> send("PUT", "/api/v1/books/" + readable[random(readable.length)], body("Updated")))
+                .add("delete", weights.getOrDefault("delete", 0),
+                        // once the disposable rows run out the deletes become 404s for an id that never existed
+                        () -> send("DELETE", "/api/v1/books/" + deletionTarget(deletable, nextDeletion), null));
+
+        LoadResult result = new LoadDriver(clients)
+                .run(Duration.ofSeconds(warmupSeconds), Duration.ofSeconds(durationSeconds), loadMix);
+
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("warmup-seconds", String.valueOf(warmupSeconds));
+        settings.put("duration-seconds", String.valueOf(durationSeconds));
+        settings.put("mix", mix);
+        settings.put("db-latency-ms", String.valueOf(dbLatencyMillis));
+        List<String> lines = LoadReport.lines(result, settings);
+        System.out.printf("%n%s%n", String.join(System.lineSeparator(), lines));
+        System.out.printf("report written to %s%n", LoadReport.write(report, result, settings).toAbsolutePath());
+
+        Map<String, Double> p99Limits = NamedValues.parse(maxP99Ms, Double::valueOf);
+        assertThat(new LoadThresholds(maxErrorRate, minRequestsPerSecond, p99Limits).violations(result))
+                .as("load thresholds").isEmpty();
+    }
+
+    private int[] seed(int count, String prefix) {
+        List<Book> seeded = IntStream.range(0, count)
+                .mapToObj(i -> new Book(0, prefix + " " + i, "Seeded for the load test"))
+                .toList();
+        return batchWriter.insertAll(seeded).stream()
+                .filter(BookBatchResult::isSuccess)
+                .mapToInt(BookBatchResult::getId)
+                .toArray();
+    }
+
+    private static int deletionTarget(int[] deletable, AtomicInteger nextDeletion) {
+        int index = nextDeletion.getAndIncrement();
+        return index < deletable.length ? deletable[index] : Integer.MAX_VALUE;
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(Math.max(bound, 1));
+    }
+
+    private static String body(String prefix) {
+        return "{\"title\":\"" + prefix + " " + random(1_000_000) + "\",\"description\":\"Written by the load test\"}";
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).build();
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path));
+        if (json == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
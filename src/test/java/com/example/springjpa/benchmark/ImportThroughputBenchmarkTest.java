@@ -0,0 +1,101 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.dto.BookImportResult;
+import com.example.springjpa.format.BookFileFormat;
+import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.service.BookImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a generated NDJSON upload that is never materialized in memory and reports
+ * rows/sec and heap growth. Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class ImportThroughputBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+
+    @Autowired
+    private BookImportService importService;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void importLargeUploadWithBoundedHeap() throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long start = System.nanoTime();
+        BookImportResult result = importService.importBooks(BookFileFormat.NDJSON.openReader(
+                new BufferedReader(new GeneratedUpload(ROWS)), objectMapper));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        assertThat(result.getImported()).isEqualTo(ROWS);
+        assertThat(repository.count()).isEqualTo(ROWS);
+
+        System.out.printf("%nimported %d rows in %.1f s: %.0f rows/sec, retained heap delta %d KB (includes the in-memory H2 tables)%n",
+                ROWS, seconds, ROWS / seconds, (heapAfter - heapBefore) / 1024);
+    }
+
+    /**
+     * Produces NDJSON lines on demand, like a slow client streaming a huge file.
+     */
+    private static class GeneratedUpload extends Reader {
+
+        private final int rows;
+        private int row;
+        private String line = "";
+        private int position;
+
+        GeneratedUpload(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == line.length()) {
+                if (row == rows) {
+                    return -1;
+                }
+                row++;
+                line = "{\"title\":\"Title " + row + "\",\"description\":\"Description " + row + "\"}\n";
+                position = 0;
+            }
+            int count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
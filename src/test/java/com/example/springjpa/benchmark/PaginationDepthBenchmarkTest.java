@@ -0,0 +1,89 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares offset pagination (LIMIT/OFFSET + COUNT) with keyset pagination
+ * (WHERE id > ? LIMIT ?) at increasing depths. Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PaginationDepthBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void seed() {
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(new Object[]{i, "Title " + i, "Description " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, description) VALUES (?, ?, ?)", rows);
+    }
+
+    @Test
+    void compareOffsetAndKeysetLatencyAtDepth() {
+        int firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM books", Integer.class);
+
+        System.out.printf("%n%-10s %15s %15s%n", "depth", "offset (us)", "keyset (us)");
+        for (int depth : new int[]{0, 1_000, 10_000, 50_000, 100_000, 190_000}) {
+            int pageNumber = depth / PAGE_SIZE;
+            int afterId = firstId + depth - 1;
+
+            double offset = measure(() ->
+                    repository.findAll(PageRequest.of(pageNumber, PAGE_SIZE)).getContent());
+            double keyset = measure(() ->
+                    repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(PAGE_SIZE)));
+
+            System.out.printf("%-10d %15.1f %15.1f%n", depth, offset, keyset);
+        }
+    }
+
+    private double measure(Supplier<List<Book>> page) {
+        for (int i = 0; i < WARMUP; i++) {
+            run(page);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            run(page);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+
+    private void run(Supplier<List<Book>> page) {
+        assertThat(page.get()).hasSize(PAGE_SIZE);
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.loadtest.DatabaseLatencyConfig;
+import com.example.springjpa.loadtest.LatencyStats;
+import com.example.springjpa.loadtest.LoadDriver;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.netty.DisposableServer;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and tail latency of the paged list endpoint in v1 (servlet, JDBC) versus v2 (netty,
+ * R2DBC) under many more concurrent clients than Tomcat has threads. Every SQL statement is
+ * delayed to mimic a networked database, and both stacks get a connection pool of the same size.
+ * Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(DatabaseLatencyConfig.class)
+@TestPropertySource(properties = {
+        "loadtest.db-latency-ms=5",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.datasource.hikari.minimum-idle=40",
+        "book.reactive.r2dbc.pool-size=40",
+        "book.reactive.enabled=true",
+        "book.reactive.port=0"
+})
+class ReactiveApiLoadBenchmarkTest {
+
+    private static final int CLIENTS = 1_000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    private static final Map<String, LatencyStats> RESULTS = new LinkedHashMap<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DisposableServer reactiveServer;
+
+    @Autowired
+    private BookRepository repository;
+
+    @AfterAll
+    static void report() {
+        System.out.printf("%n%d clients, GET /api/{v1,v2}/books?page=0&size=10%n", CLIENTS);
+        RESULTS.forEach((api, stats) -> System.out.printf("%-10s %s%n", api, stats));
+    }
+
+    @BeforeEach
+    void seed() {
+        if (repository.count() == 0) {
+            repository.saveAll(IntStream.range(0, 100)
+                    .mapToObj(i -> new Book(0, "Title " + i, "Description " + i))
+                    .toList());
+        }
+    }
+
+    @Test
+    void servletApi() throws InterruptedException {
+        drive("v1", port);
+    }
+
+    @Test
+    void reactiveApi() throws InterruptedException {
+        drive("v2", reactiveServer.port());
+    }
+
+    private void drive(String api, int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/" + api + "/books?page=0&size=10")).build();
+
+        LatencyStats stats = new LoadDriver(CLIENTS).run(WARMUP, DURATION, () -> request);
+
+        RESULTS.put(api, stats);
+        assertThat(stats.requests()).isPositive();
+    }
+}
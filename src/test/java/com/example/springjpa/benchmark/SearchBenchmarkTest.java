@@ -0,0 +1,78 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency as the table grows. Against MySQL this exercises the FULLTEXT
+ * index; on the embedded H2 profile it measures the LIKE fallback.
+ * Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class SearchBenchmarkTest {
+
+    private static final String[] WORDS = {"java", "spring", "history", "garden", "ocean", "travel", "design", "music"};
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void searchLatencyByTableSize() {
+        System.out.printf("%n%-10s %12s %10s%n", "rows", "latency (us)", "hits");
+        int rows = 0;
+        for (int target : new int[]{10_000, 50_000, 100_000, 200_000}) {
+            seed(rows, target);
+            rows = target;
+
+            long hits = repository.search("ocean", PageRequest.of(0, 20)).getTotalElements();
+            for (int i = 0; i < WARMUP; i++) {
+                search();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                search();
+            }
+            double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+
+            System.out.printf("%-10d %12.1f %10d%n", rows, micros, hits);
+        }
+    }
+
+    private void search() {
+        assertThat(repository.search("ocean", PageRequest.of(0, 20)).getContent()).isNotEmpty();
+        entityManager.clear();
+    }
+
+    private void seed(int from, int to) {
+        List<Object[]> batch = new ArrayList<>(to - from);
+        for (int i = from + 1; i <= to; i++) {
+            batch.add(new Object[]{i, WORDS[i % WORDS.length] + " title " + i,
+                    "about " + WORDS[(i / WORDS.length) % WORDS.length]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, description) VALUES (?, ?, ?)", batch);
+    }
+}
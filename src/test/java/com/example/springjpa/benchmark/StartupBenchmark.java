@@ -0,0 +1,143 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.SpringjpaApplication;
+import org.h2.tools.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process start to the first successful {@code GET /api/v1/books} for the plain jar
+ * ({@code ddl-auto=update}) and for the fast-startup mode (AOT-processed context, AppCDS archive,
+ * schema validation). Both run against the same H2 database served over TCP, the first default run
+ * creates the schema. Run with {@code mvn -Pfast-startup verify}, which builds both first.
+ */
+public class StartupBenchmark {
+
+    private static final int RUNS = 5;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Path jar;
+    private final Path fastStartupDirectory;
+    private final String databaseUrl;
+    private final String h2Jar;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    StartupBenchmark(Path jar, Path fastStartupDirectory, String databaseUrl) throws Exception {
+        this.jar = jar;
+        this.fastStartupDirectory = fastStartupDirectory;
+        this.databaseUrl = databaseUrl;
+        this.h2Jar = new File(Server.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int databasePort = freePort();
+        Server database = Server.createTcpServer("-tcpPort", String.valueOf(databasePort), "-ifNotExists").start();
+        try {
+            StartupBenchmark benchmark = new StartupBenchmark(Path.of(args[0]), Path.of(args[1]),
+                    "jdbc:h2:tcp://localhost:" + databasePort + "/mem:startup;DB_CLOSE_DELAY=-1");
+            benchmark.run();
+        } finally {
+            database.stop();
+        }
+    }
+
+    void run() throws Exception {
+        // creates the schema the fast-startup mode validates, and warms the file system cache for both
+        timeToFirstRequest("default", defaultCommand(), 0);
+
+        Map<String, List<Duration>> results = new LinkedHashMap<>();
+        for (int run = 1; run <= RUNS; run++) {
+            results.computeIfAbsent("default", mode -> new ArrayList<>()).add(timeToFirstRequest("default", defaultCommand(), run));
+            results.computeIfAbsent("fast-startup", mode -> new ArrayList<>()).add(timeToFirstRequest("fast-startup", fastStartupCommand(), run));
+        }
+
+        System.out.printf("%nTime to first successful GET /api/v1/books, %d runs each%n", RUNS);
+        results.forEach((mode, times) -> {
+            List<Duration> sorted = times.stream().sorted().toList();
+            System.out.printf("%-14s median %5d ms   min %5d ms   max %5d ms%n", mode,
+                    sorted.get(sorted.size() / 2).toMillis(), sorted.getFirst().toMillis(), sorted.getLast().toMillis());
+        });
+    }
+
+    private List<String> defaultCommand() {
+        // the repackaged jar as deployed today; PropertiesLauncher lets it pick up the H2 driver
+        return List.of(java(), "-Dloader.path=" + h2Jar, "-cp", jar.toString(),
+                "org.springframework.boot.loader.launch.PropertiesLauncher");
+    }
+
+    private List<String> fastStartupCommand() {
+        // H2 goes after the application jar: the archive stays valid when entries are appended to its class path
+        return List.of(java(), "-XX:SharedArchiveFile=" + fastStartupDirectory.resolve("application.jsa"),
+                "-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+                "-cp", fastStartupDirectory.resolve(jar.getFileName()) + File.pathSeparator + h2Jar,
+                SpringjpaApplication.class.getName());
+    }
+
+    private Duration timeToFirstRequest(String mode, List<String> command, int run) throws Exception {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + databaseUrl,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        Path log = fastStartupDirectory.resolve("startup-" + mode + "-" + run + ".log");
+        Files.createDirectories(log.getParent());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/v1/books?page=0&size=1")).build();
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + log);
+                }
+                if (succeeds(request)) {
+                    return Duration.ofNanos(System.nanoTime() - start);
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode + " did not answer within " + STARTUP_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private boolean succeeds(HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // not listening yet
+            return false;
+        }
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
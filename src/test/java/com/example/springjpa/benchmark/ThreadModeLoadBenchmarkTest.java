@@ -0,0 +1,100 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.loadtest.DatabaseLatencyConfig;
+import com.example.springjpa.loadtest.LatencyStats;
+import com.example.springjpa.loadtest.LoadDriver;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and tail latency of the paged list endpoint with platform-thread Tomcat versus the
+ * {@code virtual} profile, under many more concurrent clients than Tomcat has threads. Every SQL
+ * statement is delayed to mimic a networked database, and both modes get the same connection pool.
+ * Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(DatabaseLatencyConfig.class)
+@TestPropertySource(properties = {
+        "loadtest.db-latency-ms=5",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.datasource.hikari.minimum-idle=40"
+})
+class ThreadModeLoadBenchmarkTest {
+
+    private static final int CLIENTS = 1_000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    private static final Map<String, LatencyStats> RESULTS = new LinkedHashMap<>();
+
+    @AfterAll
+    static void report() {
+        System.out.printf("%n%d clients, GET /api/v1/books?page=0&size=10%n", CLIENTS);
+        RESULTS.forEach((mode, stats) -> System.out.printf("%-10s %s%n", mode, stats));
+    }
+
+    abstract static class Mode {
+
+        @LocalServerPort
+        int port;
+
+        @Autowired
+        BookRepository repository;
+
+        void drive(String mode) throws InterruptedException {
+            if (repository.count() == 0) {
+                repository.saveAll(IntStream.range(0, 100)
+                        .mapToObj(i -> new Book(0, "Title " + i, "Description " + i))
+                        .toList());
+            }
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/v1/books?page=0&size=10")).build();
+
+            LatencyStats stats = new LoadDriver(CLIENTS).run(WARMUP, DURATION, () -> request);
+
+            RESULTS.put(mode, stats);
+            assertThat(stats.requests()).isPositive();
+        }
+    }
+
+    @Nested
+    class PlatformThreads extends Mode {
+
+        @Test
+        void load() throws InterruptedException {
+            drive("platform");
+        }
+    }
+
+    @Nested
+    @ActiveProfiles("virtual")
+    class VirtualThreads extends Mode {
+
+        @Test
+        void load() throws InterruptedException {
+            drive("virtual");
+        }
+    }
+}
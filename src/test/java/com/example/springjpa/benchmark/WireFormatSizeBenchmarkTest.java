@@ -0,0 +1,121 @@
+package com.example.springjpa.benchmark;
+
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.dto.PageResponse;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Size of a GET /api/v1/books page in each negotiable format, as sent and gzipped or deflated, next
+ * to the Spring {@code Page} JSON it replaced, with a rough encode/decode time per format. JMH
+ * numbers for the same bodies come from {@code WireFormatBenchmark}. Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+class WireFormatSizeBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    @Test
+    void payloadSizeAndCodecTimeByFormat() throws IOException {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        System.out.printf("%n%-6s %-12s %10s %10s %10s %12s %12s%n",
+                "rows", "format", "bytes", "gzip", "deflate", "encode (us)", "decode (us)");
+        for (int pageSize : new int[]{10, 100, 1_000}) {
+            Page<BookResponse> page = page(pageSize);
+
+            byte[] legacy = json.writeValueAsBytes(ApiResponse.success("Books retrieved successfully", page));
+            printSizes(pageSize, "json (Page)", legacy);
+            System.out.println();
+
+            ApiResponse<PageResponse<BookResponse>> body =
+                    ApiResponse.success("Books retrieved successfully", PageResponse.of(page));
+            measure(pageSize, "json", json, body);
+            measure(pageSize, "cbor", Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build(), body);
+            measure(pageSize, "smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build(), body);
+            measure(pageSize, "avro", AvroMapper.builder().addModule(new AvroJavaTimeModule()).build(), body);
+        }
+    }
+
+    private void measure(int pageSize, String format, ObjectMapper mapper,
+                         ApiResponse<PageResponse<BookResponse>> body) throws IOException {
+        JavaType type = mapper.getTypeFactory().constructParametricType(ApiResponse.class,
+                mapper.getTypeFactory().constructParametricType(PageResponse.class, BookResponse.class));
+        ObjectWriter writer = mapper.writerFor(type);
+        ObjectReader reader = mapper.readerFor(type);
+        if (mapper instanceof AvroMapper avroMapper) {
+            AvroSchema schema = avroMapper.schemaFor(type);
+            writer = writer.with(schema);
+            reader = reader.with(schema);
+        }
+
+        byte[] encoded = writer.writeValueAsBytes(body);
+        assertThat((Object) reader.readValue(encoded)).isEqualTo(body);
+
+        for (int i = 0; i < WARMUP; i++) {
+            writer.writeValueAsBytes(body);
+            reader.readValue(encoded);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            writer.writeValueAsBytes(body);
+        }
+        double encodeMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            reader.readValue(encoded);
+        }
+        double decodeMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+
+        printSizes(pageSize, format, encoded);
+        System.out.printf(" %12.1f %12.1f%n", encodeMicros, decodeMicros);
+    }
+
+    private static void printSizes(int pageSize, String format, byte[] encoded) throws IOException {
+        System.out.printf("%-6d %-12s %10d %10d %10d", pageSize, format, encoded.length,
+                compressed(encoded, GZIPOutputStream::new), compressed(encoded, DeflaterOutputStream::new));
+    }
+
+    private static int compressed(byte[] encoded, Compressor compressor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.wrap(bytes)) {
+            out.write(encoded);
+        }
+        return bytes.size();
+    }
+
+    private static Page<BookResponse> page(int pageSize) {
+        List<BookResponse> books = IntStream.range(0, pageSize)
+                .mapToObj(i -> new BookResponse(i, "Title " + i, "Description of book number " + i, i % 3))
+                .toList();
+        return new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.springjpa.catalog;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.service.BookService;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog;DB_CLOSE_DELAY=-1",
+        "book.catalog.enabled=true",
+        "spring.cache.type=none"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookCatalogTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookCatalog catalog;
+
+    @Autowired
+    private BookService bookService;
+
+    @MockitoSpyBean
+    private BookRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakers;
+
+    @AfterEach
+    void resetCircuit() {
+        circuitBreakers.circuitBreaker("bookService").reset();
+    }
+
+    @Test
+    void shouldFollowWritesMadeThroughTheService() {
+        Book created = bookService.createBook(new Book(0, "Followed", "v0"));
+        assertThat(catalog.findById(created.getId())).contains(created);
+
+        bookService.updateBook(created.getId(), new Book(0, "Followed", "v1"), 0L);
+        assertThat(catalog.findById(created.getId())).get().extracting(Book::getDescription).isEqualTo("v1");
+
+        List<Book> batch = List.of(new Book(0, "Batch A", null), new Book(0, "Batch B", null));
+        bookService.createBooks(batch);
+        assertThat(catalog.findAllById(batch.stream().map(Book::getId).toList())).hasSize(2);
+
+        bookService.deleteBook(created.getId());
+        bookService.deleteBooks(batch.stream().map(Book::getId).toList());
+        assertThat(catalog.findById(created.getId())).isEmpty();
+        assertThat(catalog.findAllById(batch.stream().map(Book::getId).toList())).isEmpty();
+    }
+
+    @Test
+    void shouldLoadBooksWrittenBehindItsBack() {
+        jdbcTemplate.update("INSERT INTO books (id, title, description, version) VALUES (900000, 'Direct', NULL, 3)");
+
+        catalog.load();
+
+        assertThat(catalog.findById(900000)).contains(new Book(900000, "Direct", null, 3));
+        jdbcTemplate.update("DELETE FROM books WHERE id = 900000");
+        catalog.load();
+    }
+
+    @Test
+    void shouldAnswerFromCatalogFlaggedStaleWhenDatabaseFails() throws Exception {
+        Book book = bookService.createBook(new Book(0, "Survivor", "still here"));
+        doThrow(new DataAccessResourceFailureException("database down")).when(repository).findResponses(any(Pageable.class));
+        doThrow(new DataAccessResourceFailureException("database down")).when(repository).findById(anyInt());
+
+        mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stale").value(true))
+                .andExpect(jsonPath("$.asOf").exists())
+                .andExpect(jsonPath("$.data.content[?(@.title == 'Survivor')]").exists());
+        mockMvc.perform(get("/api/v1/books/" + book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stale").value(true))
+                .andExpect(jsonPath("$.data.description").value("still here"));
+    }
+
+    @Test
+    void shouldNotLeaveTheStaleMarkOnTheThreadOfAFailedRequest() {
+        MockFilterChain failsAfterFallback = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                catalog.markStale();
+                assertThat(BookCatalog.isStale()).isTrue();
+                throw new IllegalStateException("failed before the controller took the mark");
+            }
+        };
+
+        assertThatThrownBy(() -> new StaleMarkFilter().doFilter(
+                new MockHttpServletRequest(), new MockHttpServletResponse(), failsAfterFallback))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(BookCatalog.isStale()).isFalse();
+    }
+}
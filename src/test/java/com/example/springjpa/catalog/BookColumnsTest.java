@@ -0,0 +1,67 @@
+package com.example.springjpa.catalog;
+
+import com.example.springjpa.model.Book;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookColumnsTest {
+
+    @Test
+    void shouldKeepBooksInIdOrderWhateverTheInsertOrder() {
+        BookColumns columns = new BookColumns(0);
+        columns.put(new Book(5, "Five", "5"));
+        columns.put(new Book(1, "One", null));
+        columns.put(new Book(3, "Drei – ü", "3"));
+
+        assertThat(columns.slice(0, 10)).extracting(Book::getId).containsExactly(1, 3, 5);
+        assertThat(columns.after(1, 10)).extracting(Book::getId).containsExactly(3, 5);
+        assertThat(columns.after(2, 1)).extracting(Book::getId).containsExactly(3);
+        assertThat(columns.findById(3)).isEqualTo(new Book(3, "Drei – ü", "3"));
+        assertThat(columns.findById(1).getDescription()).isNull();
+        assertThat(columns.findById(2)).isNull();
+    }
+
+    @Test
+    void shouldIgnoreOlderVersions() {
+        BookColumns columns = new BookColumns(0);
+        columns.put(new Book(1, "New", null, 2));
+        columns.put(new Book(1, "Old", null, 1));
+
+        assertThat(columns.findById(1)).isEqualTo(new Book(1, "New", null, 2));
+    }
+
+    @Test
+    void shouldRemoveAndCompactRewrittenText() {
+        BookColumns columns = new BookColumns(0);
+        for (int i = 1; i <= 1000; i++) {
+            columns.put(new Book(i, "Title " + i, "Description " + i));
+        }
+        long before = columns.footprintBytes();
+        for (int version = 1; version <= 50; version++) {
+            for (int i = 1; i <= 1000; i++) {
+                columns.put(new Book(i, "Title " + i, "Description " + version, version));
+            }
+        }
+        assertThat(columns.remove(500)).isTrue();
+        assertThat(columns.remove(500)).isFalse();
+
+        assertThat(columns.size()).isEqualTo(999);
+        assertThat(columns.findById(501)).isEqualTo(new Book(501, "Title 501", "Description 50", 50));
+        assertThat(columns.footprintBytes()).isLessThan(before * 4);
+    }
+
+    @Test
+    void shouldStoreAMillionBooksCompactly() {
+        BookColumns columns = new BookColumns(1024);
+        for (int i = 1; i <= 1_000_000; i++) {
+            columns.put(new Book(i, "Title " + i, "Description " + i));
+        }
+
+        long bytes = columns.footprintBytes();
+        System.out.printf("catalog: %d books in %.1f MB, %d bytes per book%n",
+                columns.size(), bytes / 1e6, bytes / columns.size());
+        // 16 bytes of ids, versions and offsets, ~34 of text, plus array growth slack
+        assertThat(bytes / columns.size()).isLessThan(100);
+    }
+}
@@ -1,8 +1,26 @@
 package com.example.springjpa.controller;
 
+import com.example.springjpa.catalog.BookCatalog;
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.dto.BookImportError;
+import com.example.springjpa.dto.BookImportResult;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.format.AvroHttpMessageConverter;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.mapper.BookResponseCache;
+import com.example.springjpa.mapper.CursorCodec;
 import com.example.springjpa.model.Book;
+import com.example.springjpa.model.BookVersion;
+import com.example.springjpa.service.BookImportService;
 import com.example.springjpa.service.BookService;
+import com.example.springjpa.service.BookWriteBehindService;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,14 +31,22 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -35,6 +61,18 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookImportService bookImportService;
+
+    @MockitoBean
+    private BookResponseCache bookResponseCache;
+
+    @MockitoBean
+    private BookWriteBehindService writeBehind;
+
+    @MockitoBean
+    private BookCatalog catalog;
+
     private Book book1;
 
     @BeforeEach
@@ -45,7 +83,7 @@ class BookControllerTest {
     @Test
     void shouldReturnAllBooksPaginated() throws Exception {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Book> bookPage = new PageImpl<>(List.of(book1), pageable, 1);
+        Page<BookResponse> bookPage = new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1);
 
         Mockito.when(bookService.getAllBooks(Mockito.any(Pageable.class))).thenReturn(bookPage);
 
@@ -59,7 +97,169 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.data.content[0].title").value(book1.getTitle()))
                 .andExpect(jsonPath("$.data.content[0].description").value(book1.getDescription()))
                 .andExpect(jsonPath("$.data.totalElements").value(1))
-                .andExpect(jsonPath("$.data.totalPages").value(1));
+                .andExpect(jsonPath("$.data.totalPages").value(1))
+                .andExpect(jsonPath("$.data.page").value(0))
+                .andExpect(jsonPath("$.data.size").value(10))
+                .andExpect(jsonPath("$.data.pageable").doesNotExist())
+                .andExpect(jsonPath("$.data.sort").doesNotExist());
+    }
+
+    @Test
+    void shouldEncodeBookPageAsCborWhenAccepted() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(bookService.getAllBooks(Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1));
+
+        byte[] cbor = mockMvc.perform(get("/api/v1/books").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode body = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        assertEquals(book1.getTitle(), body.at("/data/content/0/title").asText());
+        assertEquals(1, body.at("/data/totalElements").asInt());
+    }
+
+    @Test
+    void shouldEncodeBookAsAvroInsteadOfCachedJson() throws Exception {
+        Mockito.when(bookService.getBookById(1)).thenReturn(Optional.of(book1));
+        Mockito.when(bookResponseCache.isEnabled()).thenReturn(true);
+
+        byte[] avro = mockMvc.perform(get("/api/v1/books/1").accept(AvroHttpMessageConverter.APPLICATION_AVRO))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(AvroHttpMessageConverter.APPLICATION_AVRO))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        AvroMapper avroMapper = new AvroMapper(new AvroJavaTimeModule());
+        JavaType type = avroMapper.getTypeFactory().constructParametricType(ApiResponse.class, BookResponse.class);
+        ApiResponse<BookResponse> body = avroMapper.readerFor(type).with(avroMapper.schemaFor(type)).readValue(avro);
+        assertEquals(BookMapper.toResponse(book1), body.getData());
+        Mockito.verify(bookResponseCache, Mockito.never()).found(Mockito.any());
+    }
+
+    @Test
+    void shouldReturnFirstKeysetPageWithNextCursor() throws Exception {
+        Book book2 = new Book(2, "Book B", "Desc B");
+        Mockito.when(bookService.getBooksAfter(0, 2))
+                .thenReturn(List.of(BookMapper.toResponse(book1), BookMapper.toResponse(book2)));
+
+        mockMvc.perform(get("/api/v1/books")
+                        .param("after", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.content.length()").value(1))
+                .andExpect(jsonPath("$.data.content[0].id").value(book1.getId()))
+                .andExpect(jsonPath("$.data.nextCursor").value(CursorCodec.encode(book1.getId())))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+    }
+
+    @Test
+    void shouldSeekPastCursorAndOmitNextCursorOnLastPage() throws Exception {
+        Book book2 = new Book(2, "Book B", "Desc B");
+        Mockito.when(bookService.getBooksAfter(1, 11)).thenReturn(List.of(BookMapper.toResponse(book2)));
+
+        mockMvc.perform(get("/api/v1/books")
+                        .param("after", CursorCodec.encode(1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].id").value(2))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/books")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void shouldGetBooksByIds() throws Exception {
+        Book book2 = new Book(2, "Book B", "Desc B");
+        Mockito.when(bookService.getBooksByIds(Set.of(2, 1, 9))).thenReturn(List.of(book2, book1));
+
+        mockMvc.perform(get("/api/v1/books").param("ids", "2,1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Books retrieved successfully"))
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].id").value(2))
+                .andExpect(jsonPath("$.data[1].id").value(1));
+
+        Mockito.verify(bookService, Mockito.never()).getAllBooks(any(Pageable.class));
+    }
+
+    @Test
+    void shouldRejectTooManyIds() throws Exception {
+        String ids = IntStream.rangeClosed(1, 501).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/v1/books").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void shouldSearchBooks() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(bookService.searchBooks(Mockito.eq("book"), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1));
+
+        mockMvc.perform(get("/api/v1/books/search")
+                        .param("q", " book "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.content[0].title").value(book1.getTitle()))
+                .andExpect(jsonPath("$.data.totalElements").value(1));
+    }
+
+    @Test
+    void shouldReturnEmptySearchResultForBlankQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/books/search")
+                        .param("q", " "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(0));
+
+        Mockito.verify(bookService, Mockito.never()).searchBooks(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    void shouldExportBooksAsNdjson() throws Exception {
+        Mockito.when(bookService.exportBooks(Mockito.any())).thenAnswer(invocation -> {
+            Consumer<Book> sink = invocation.getArgument(0);
+            sink.accept(book1);
+            sink.accept(new Book(2, "Book B", null));
+            return 2L;
+        });
+
+        mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"title\":\"Book A\",\"description\":\"Desc A\",\"version\":0}\n"
+                        + "{\"id\":2,\"title\":\"Book B\",\"description\":null,\"version\":0}\n"));
+    }
+
+    @Test
+    void shouldExportBooksAsCsv() throws Exception {
+        Mockito.when(bookService.exportBooks(Mockito.any())).thenAnswer(invocation -> {
+            Consumer<Book> sink = invocation.getArgument(0);
+            sink.accept(new Book(1, "Hello, \"World\"", "Desc A"));
+            return 1L;
+        });
+
+        mockMvc.perform(get("/api/v1/books/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=books.csv"))
+                .andExpect(content().string("id,title,description\n1,\"Hello, \"\"World\"\"\",Desc A\n"));
+    }
+
+    @Test
+    void shouldRejectUnsupportedExportFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported format: xml"));
     }
 
     @Test
@@ -75,6 +275,20 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.data.description").value(book1.getDescription()));
     }
 
+    @Test
+    void shouldServeBookFromCatalogWithoutService() throws Exception {
+        Mockito.when(catalog.isServingReads()).thenReturn(true);
+        Mockito.when(catalog.findById(1)).thenReturn(Optional.of(book1));
+
+        mockMvc.perform(get("/api/v1/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"0\""))
+                .andExpect(jsonPath("$.data.title").value(book1.getTitle()))
+                .andExpect(jsonPath("$.stale").doesNotExist());
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
     @Test
     void shouldReturn404IfBookNotFound() throws Exception {
         Mockito.when(bookService.getBookById(2)).thenReturn(Optional.empty());
@@ -85,6 +299,84 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.message").value("Book not found"));
     }
 
+    @Test
+    void shouldWriteCachedResponseBytesWhenEnabled() throws Exception {
+        byte[] json = "{\"success\":true,\"message\":\"Book found\",\"data\":{\"id\":1}}".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(bookService.getBookById(1)).thenReturn(Optional.of(book1));
+        Mockito.when(bookResponseCache.isEnabled()).thenReturn(true);
+        Mockito.when(bookResponseCache.found(book1)).thenReturn(json);
+
+        mockMvc.perform(get("/api/v1/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "W/\"0\""))
+                .andExpect(content().bytes(json));
+    }
+
+    @Test
+    void shouldTagBookWithItsVersion() throws Exception {
+        Mockito.when(bookService.getBookById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A", 3)));
+
+        mockMvc.perform(get("/api/v1/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3\""));
+    }
+
+    @Test
+    void shouldReturn304WithoutLoadingBookWhenETagMatches() throws Exception {
+        Mockito.when(bookService.getBookVersion(1)).thenReturn(OptionalLong.of(3));
+
+        mockMvc.perform(get("/api/v1/books/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(bookService, Mockito.never()).getBookById(1);
+    }
+
+    @Test
+    void shouldReturnBookWhenETagIsStale() throws Exception {
+        Mockito.when(bookService.getBookVersion(1)).thenReturn(OptionalLong.of(4));
+        Mockito.when(bookService.getBookById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A", 4)));
+
+        mockMvc.perform(get("/api/v1/books/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"4\""))
+                .andExpect(jsonPath("$.data.version").value(4));
+    }
+
+    @Test
+    void shouldReturn404ForConditionalGetOfMissingBook() throws Exception {
+        Mockito.when(bookService.getBookVersion(2)).thenReturn(OptionalLong.empty());
+        Mockito.when(bookService.getBookById(2)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/books/2").header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturn304ForUnchangedPage() throws Exception {
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<BookResponse> bookPage = new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1);
+        Mockito.when(bookService.getAllBooks(any(Pageable.class))).thenReturn(bookPage);
+        Mockito.when(bookService.getBookVersions(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(new BookVersion(1, 0)), pageable, 1));
+
+        String eTag = mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/books").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        Mockito.verify(bookService, Mockito.times(1)).getAllBooks(any(Pageable.class));
+
+        Mockito.when(bookService.getBookVersions(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(new BookVersion(1, 1)), pageable, 1));
+        mockMvc.perform(get("/api/v1/books").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void shouldCreateBook() throws Exception {
         Mockito.when(bookService.createBook(Mockito.any(Book.class))).thenReturn(book1);
@@ -100,10 +392,121 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.data.description").value(book1.getDescription()));
     }
 
+    @Test
+    void shouldQueueBookWhenClientPrefersAsync() throws Exception {
+        Mockito.when(writeBehind.isEnabled()).thenReturn(true);
+        Mockito.when(writeBehind.accept(any(Book.class))).thenReturn(42L);
+
+        mockMvc.perform(post("/api/v1/books")
+                        .header("Prefer", "wait=5, respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Book A\",\"description\":\"Desc A\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/books/pending/42"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.message").value("Book accepted for writing"))
+                .andExpect(jsonPath("$.data.token").value(42))
+                .andExpect(jsonPath("$.data.written").value(false));
+
+        Mockito.verify(bookService, Mockito.never()).createBook(any(Book.class));
+    }
+
+    @Test
+    void shouldCreateSynchronouslyWhenWriteBehindIsDisabled() throws Exception {
+        Mockito.when(bookService.createBook(any(Book.class))).thenReturn(book1);
+
+        mockMvc.perform(post("/api/v1/books")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Book A\",\"description\":\"Desc A\"}"))
+                .andExpect(status().isCreated());
+
+        Mockito.verify(writeBehind, Mockito.never()).accept(any(Book.class));
+    }
+
+    @Test
+    void shouldReportWriteStatus() throws Exception {
+        Mockito.when(writeBehind.isKnown(42L)).thenReturn(true);
+        Mockito.when(writeBehind.isWritten(42L)).thenReturn(true);
+
+        mockMvc.perform(get("/api/v1/books/pending/42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Book written"))
+                .andExpect(jsonPath("$.data.written").value(true));
+        mockMvc.perform(get("/api/v1/books/pending/43"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Unknown token"));
+    }
+
+    @Test
+    void shouldReportBooksTheFlusherRejected() throws Exception {
+        Mockito.when(writeBehind.isKnown(42L)).thenReturn(true);
+        Mockito.when(writeBehind.rejection(42L)).thenReturn("Check constraint violation");
+
+        mockMvc.perform(get("/api/v1/books/pending/42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Book rejected"))
+                .andExpect(jsonPath("$.data.written").value(false))
+                .andExpect(jsonPath("$.data.error").value("Check constraint violation"));
+    }
+
+    @Test
+    void shouldCreateBooksInBatch() throws Exception {
+        Mockito.when(bookService.createBooks(Mockito.anyList()))
+                .thenReturn(List.of(BookBatchResult.created(0, 1), BookBatchResult.created(1, 2)));
+
+        mockMvc.perform(post("/api/v1/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"Book A\"},{\"title\":\"Book B\"}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.data[1].id").value(2));
+    }
+
+    @Test
+    void shouldReportPerItemFailuresInBatch() throws Exception {
+        Mockito.when(bookService.createBooks(Mockito.anyList()))
+                .thenReturn(List.of(BookBatchResult.created(0, 1), BookBatchResult.failed(1, "title is required")));
+
+        mockMvc.perform(post("/api/v1/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"Book A\"},{\"description\":\"no title\"}]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.message").value("Batch processed: 1 created, 1 failed"))
+                .andExpect(jsonPath("$.data[1].success").value(false))
+                .andExpect(jsonPath("$.data[1].error").value("title is required"));
+    }
+
+    @Test
+    void shouldImportNdjsonUpload() throws Exception {
+        Mockito.when(bookImportService.importBooks(Mockito.any()))
+                .thenReturn(new BookImportResult(3, 2, 1, List.of(new BookImportError(2, "bad json")), false));
+
+        mockMvc.perform(post("/api/v1/books/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"title\":\"A\"}\nbad\n{\"title\":\"B\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Import processed: 2 imported, 1 failed"))
+                .andExpect(jsonPath("$.data.processed").value(3))
+                .andExpect(jsonPath("$.data.errors[0].line").value(2));
+    }
+
+    @Test
+    void shouldRejectCsvImportWithoutTitleColumn() throws Exception {
+        mockMvc.perform(post("/api/v1/books/import")
+                        .contentType("text/csv")
+                        .content("id,name\n1,A\n"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(bookImportService);
+    }
+
     @Test
     void shouldUpdateBookIfExists() throws Exception {
         Book updatedBook = new Book(1, "Updated", "Updated Desc");
-        Mockito.when(bookService.updateBook(Mockito.eq(1), Mockito.any(Book.class)))
+        Mockito.when(bookService.updateBook(Mockito.eq(1), Mockito.any(Book.class), Mockito.isNull()))
                 .thenReturn(Optional.of(updatedBook));
 
         mockMvc.perform(put("/api/v1/books/1")
@@ -118,7 +521,7 @@ class BookControllerTest {
 
     @Test
     void shouldReturn404WhenUpdatingNonExistingBook() throws Exception {
-        Mockito.when(bookService.updateBook(Mockito.eq(2), Mockito.any(Book.class)))
+        Mockito.when(bookService.updateBook(Mockito.eq(2), Mockito.any(Book.class), Mockito.isNull()))
                 .thenReturn(Optional.empty());
 
         mockMvc.perform(put("/api/v1/books/2")
@@ -129,6 +532,73 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.message").value("Book not found"));
     }
 
+    @Test
+    void shouldPassIfMatchVersionToUpdate() throws Exception {
+        Mockito.when(bookService.updateBook(Mockito.eq(1), Mockito.any(Book.class), Mockito.eq(3L)))
+                .thenReturn(Optional.of(new Book(1, "Updated", "Updated Desc", 4)));
+
+        mockMvc.perform(put("/api/v1/books/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated\",\"description\":\"Updated Desc\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version").value(4));
+    }
+
+    @Test
+    void shouldReturn409OnVersionConflict() throws Exception {
+        Mockito.when(bookService.updateBook(Mockito.eq(1), Mockito.any(Book.class), Mockito.eq(3L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1));
+
+        mockMvc.perform(put("/api/v1/books/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated\",\"description\":\"Updated Desc\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void shouldRejectMalformedIfMatch() throws Exception {
+        mockMvc.perform(put("/api/v1/books/1")
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated\"}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void shouldPatchOnlyProvidedFields() throws Exception {
+        Mockito.when(bookService.patchBook(Mockito.eq(1), Mockito.any(Book.class), Mockito.eq(2L)))
+                .thenReturn(Optional.of(new Book(1, "Book A", "Patched", 3)));
+
+        mockMvc.perform(patch("/api/v1/books/1")
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Patched\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("Book A"))
+                .andExpect(jsonPath("$.data.description").value("Patched"))
+                .andExpect(jsonPath("$.data.version").value(3));
+
+        Mockito.verify(bookService).patchBook(Mockito.eq(1),
+                Mockito.argThat(changes -> changes.getTitle() == null && "Patched".equals(changes.getDescription())),
+                Mockito.eq(2L));
+    }
+
+    @Test
+    void shouldReturn404WhenPatchingNonExistingBook() throws Exception {
+        Mockito.when(bookService.patchBook(Mockito.eq(2), Mockito.any(Book.class), Mockito.isNull()))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(patch("/api/v1/books/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Patched\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldDeleteBookIfExists() throws Exception {
         Mockito.when(bookService.deleteBook(1)).thenReturn(true);
@@ -139,6 +609,17 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.message").value("Book deleted successfully"));
     }
 
+    @Test
+    void shouldDeleteBooksByIdList() throws Exception {
+        Mockito.when(bookService.deleteBooks(Set.of(1, 2, 3))).thenReturn(2);
+
+        mockMvc.perform(delete("/api/v1/books").param("ids", "1,2,3,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Deleted 2 of 3 books"))
+                .andExpect(jsonPath("$.data.requested").value(3))
+                .andExpect(jsonPath("$.data.deleted").value(2));
+    }
+
     @Test
     void shouldReturn404WhenDeletingNonExistingBook() throws Exception {
         Mockito.when(bookService.deleteBook(2)).thenReturn(false);
@@ -0,0 +1,112 @@
+package com.example.springjpa.controller;
+
+import com.example.springjpa.format.AvroHttpMessageConverter;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression goes through a real port: what Tomcat does with a flushed or unflushed response, and
+ * the headers it adds, are what clients see.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCompressionTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookRepository repository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private List<Book> books;
+
+    @BeforeEach
+    void saveBooks() {
+        books = repository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> new Book(0, "Title " + i, "Description of book number " + i))
+                .toList());
+    }
+
+    @AfterEach
+    void deleteBooks() {
+        repository.deleteAllInBatch(books);
+    }
+
+    @Test
+    void shouldGzipResponsesAboveTheThreshold() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/books?page=0&size=100", "application/json");
+
+        assertThat(response.headers().firstValue("Content-Encoding")).contains("gzip");
+        assertThat(response.headers().allValues("Vary")).contains("Accept-Encoding");
+        assertThat(gunzip(response.body())).contains("\"title\":\"Title 99\"").doesNotContain("\"pageable\"");
+    }
+
+    @Test
+    void shouldGzipBinaryFormatsToo() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/books?page=0&size=100", "application/cbor");
+
+        assertThat(response.headers().firstValue("Content-Type")).contains("application/cbor");
+        assertThat(response.headers().firstValue("Content-Encoding")).contains("gzip");
+    }
+
+    @Test
+    void shouldDeflateWhenPreferred() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/books?page=0&size=100", "application/json", "gzip;q=0.5, deflate");
+
+        assertThat(response.headers().firstValue("Content-Encoding")).contains("deflate");
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(response.body()))) {
+            assertThat(new String(in.readAllBytes())).contains("\"title\":\"Title 99\"");
+        }
+    }
+
+    @Test
+    void shouldSendSmallResponsesUncompressed() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/books/" + books.get(0).getId(),
+                AvroHttpMessageConverter.APPLICATION_AVRO.toString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).contains("application/avro");
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(response.headers().firstValue("Content-Length")).contains(String.valueOf(response.body().length));
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept) throws IOException, InterruptedException {
+        return get(path, accept, "gzip");
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
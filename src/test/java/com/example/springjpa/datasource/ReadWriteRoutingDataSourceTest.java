@@ -0,0 +1,80 @@
+package com.example.springjpa.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final DataSource primary = Mockito.mock(DataSource.class);
+    private final DataSource replica0 = Mockito.mock(DataSource.class);
+    private final DataSource replica1 = Mockito.mock(DataSource.class);
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection replicaConnection = Mockito.mock(Connection.class);
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        Mockito.when(replica0.getConnection()).thenReturn(replicaConnection);
+        Mockito.when(replica1.getConnection()).thenReturn(replicaConnection);
+        routing = new ReadWriteRoutingDataSource(primary, List.of(replica0, replica1), readYourWrites, meterRegistry);
+        readYourWrites.bind("client");
+    }
+
+    @AfterEach
+    void tearDown() {
+        readYourWrites.clear();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void shouldAlternateReplicasForReadOnlyTransactions() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        }
+
+        Mockito.verify(replica0, Mockito.times(2)).getConnection();
+        Mockito.verify(replica1, Mockito.times(2)).getConnection();
+        Mockito.verifyNoInteractions(primary);
+    }
+
+    @Test
+    void shouldKeepWriterOnPrimary() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        readYourWrites.bind("someone-else");
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaIsDown() throws SQLException {
+        Mockito.when(replica0.getConnection()).thenThrow(new SQLException("connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("book.datasource.replica.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.datasource.connections").tag("target", "primary").counter().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.springjpa.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Primary and replica are two separate in-memory databases, so where a read was served from shows
+ * in what it finds.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "book.datasource.replicas.enabled=true",
+        "book.datasource.replicas.urls=" + ReadWriteRoutingTest.REPLICA_URL,
+        "book.datasource.read-your-writes-window=500ms",
+        "spring.cache.type=none"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        replica.execute("CREATE TABLE IF NOT EXISTS books (id INT PRIMARY KEY, title VARCHAR(100) NOT NULL,"
+                + " description VARCHAR(100), version BIGINT NOT NULL)");
+        replica.update("MERGE INTO books KEY (id) VALUES (100000, 'Replica copy', 'Only on the replica', 0)");
+    }
+
+    @Test
+    void shouldServeReadsFromReplica() throws Exception {
+        mockMvc.perform(get("/api/v1/books/100000").header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("Replica copy"));
+        mockMvc.perform(get("/api/v1/books").header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].title").value("Replica copy"));
+
+        assertThat(meterRegistry.get("book.datasource.connections").tag("target", "replica-0").counter().count())
+                .isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("hikaricp.connections.usage").tag("pool", "replica-0").timer().count())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimaryWithinWindow() throws Exception {
+        String created = mockMvc.perform(post("/api/v1/books")
+                        .header(ReadYourWritesFilter.CLIENT_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Fresh\",\"description\":\"Just written\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readTree(created).path("data").path("id").asInt();
+
+        mockMvc.perform(get("/api/v1/books/" + id).header(ReadYourWritesFilter.CLIENT_HEADER, "writer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("Fresh"));
+        mockMvc.perform(get("/api/v1/books/" + id).header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                .andExpect(status().isNotFound());
+
+        Thread.sleep(700);
+        mockMvc.perform(get("/api/v1/books/" + id).header(ReadYourWritesFilter.CLIENT_HEADER, "writer"))
+                .andExpect(status().isNotFound());
+        assertThat(meterRegistry.get("hikaricp.connections.usage").tag("pool", "primary").timer().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.springjpa.format;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionFilterTest {
+
+    private final ResponseCompressionFilter filter = new ResponseCompressionFilter(100, List.of(MediaType.APPLICATION_JSON));
+
+    @Test
+    void shouldPickTheCodingWithTheHighestQuality() {
+        assertThat(ResponseCompressionFilter.negotiate(null)).isNull();
+        assertThat(ResponseCompressionFilter.negotiate("br")).isNull();
+        assertThat(ResponseCompressionFilter.negotiate("gzip;q=0, deflate;q=0")).isNull();
+        assertThat(ResponseCompressionFilter.negotiate("deflate, gzip")).isEqualTo("gzip");
+        assertThat(ResponseCompressionFilter.negotiate("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(ResponseCompressionFilter.negotiate("*;q=0.8, gzip;q=0")).isEqualTo("deflate");
+        assertThat(ResponseCompressionFilter.negotiate("identity, *")).isEqualTo("gzip");
+    }
+
+    @Test
+    void shouldHoldBackFlushedBytesUntilTheThreshold() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse servletResponse)
+                    throws IOException {
+                HttpServletResponse out = (HttpServletResponse) servletResponse;
+                out.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                out.getOutputStream().write("{\"small\":true}".getBytes());
+                out.flushBuffer();
+                assertThat(out.isCommitted()).isFalse();
+            }
+        });
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLength()).isEqualTo(14);
+        assertThat(response.getContentAsString()).isEqualTo("{\"small\":true}");
+    }
+
+    @Test
+    void shouldCompressOnlyListedTypes() throws Exception {
+        byte[] body = "x".repeat(1000).getBytes();
+
+        MockHttpServletResponse json = new MockHttpServletResponse();
+        filter.doFilter(request(), json, write(MediaType.APPLICATION_JSON_VALUE, body));
+        MockHttpServletResponse octets = new MockHttpServletResponse();
+        filter.doFilter(request(), octets, write(MediaType.APPLICATION_OCTET_STREAM_VALUE, body));
+
+        assertThat(json.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(json.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(json.getContentLength()).isEqualTo(-1);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(json.getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        assertThat(octets.getHeader("Content-Encoding")).isNull();
+        assertThat(octets.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        return request;
+    }
+
+    private static MockFilterChain write(String contentType, byte[] body) {
+        return new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException {
+                response.setContentType(contentType);
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        };
+    }
+}
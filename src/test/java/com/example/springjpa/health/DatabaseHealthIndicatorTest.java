@@ -2,6 +2,10 @@ package com.example.springjpa.health;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
@@ -9,11 +13,15 @@ import org.springframework.boot.actuate.health.Status;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 
 public class DatabaseHealthIndicatorTest {
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
     void healthShouldBeUpWhenConnectionIsValid() throws SQLException {
         DataSource dataSource = mock(DataSource.class);
@@ -22,12 +30,18 @@ public class DatabaseHealthIndicatorTest {
         when(dataSource.getConnection()).thenReturn(connection);
         when(connection.isValid(anyInt())).thenReturn(true);
 
-        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource);
+        DatabaseProbe probe = probe(dataSource, Duration.ofMinutes(1), Duration.ZERO);
+        probe.checkConnectivity();
+        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(probe);
         Health health = indicator.health();
+        indicator.health();
 
         assertEquals(Status.UP, health.getStatus());
         assertTrue(health.getDetails().containsKey("Database"));
+        assertTrue(health.getDetails().containsKey("ageMillis"));
 
+        // health requests only read the cached result
+        verify(dataSource, times(1)).getConnection();
         verify(connection).isValid(1);
         verify(connection).close();
     }
@@ -40,8 +54,9 @@ public class DatabaseHealthIndicatorTest {
         when(dataSource.getConnection()).thenReturn(connection);
         when(connection.isValid(anyInt())).thenReturn(false);
 
-        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource);
-        Health health = indicator.health();
+        DatabaseProbe probe = probe(dataSource, Duration.ofMinutes(1), Duration.ZERO);
+        probe.checkConnectivity();
+        Health health = new DatabaseHealthIndicator(probe).health();
 
         assertEquals(Status.DOWN, health.getStatus());
         assertTrue(health.getDetails().containsKey("Database"));
@@ -55,10 +70,91 @@ public class DatabaseHealthIndicatorTest {
         DataSource dataSource = mock(DataSource.class);
         when(dataSource.getConnection()).thenThrow(new SQLException("DB error"));
 
-        DatabaseHealthIndicator indicator = new DatabaseHealthIndicator(dataSource);
-        Health health = indicator.health();
+        DatabaseProbe probe = probe(dataSource, Duration.ofMinutes(1), Duration.ZERO);
+        probe.checkConnectivity();
+        Health health = new DatabaseHealthIndicator(probe).health();
 
         assertEquals(Status.DOWN, health.getStatus());
         assertTrue(health.getDetails().containsKey("error"));
     }
+
+    @Test
+    void healthShouldBeUnknownUntilTheFirstProbe() {
+        DataSource dataSource = mock(DataSource.class);
+
+        Health health = new DatabaseHealthIndicator(probe(dataSource, Duration.ofMinutes(1), Duration.ZERO)).health();
+
+        assertEquals(Status.UNKNOWN, health.getStatus());
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void healthShouldBeDownWhenTheLastProbeIsStale() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+
+        DatabaseProbe probe = probe(dataSource, Duration.ZERO, Duration.ZERO);
+        probe.checkConnectivity();
+        Thread.sleep(5);
+        Health health = new DatabaseHealthIndicator(probe).health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(true, health.getDetails().get("stale"));
+    }
+
+    @Test
+    void poolHealthShouldBeDownWhileThreadsWaitForConnections() throws SQLException {
+        HikariPoolMXBean mxBean = mock(HikariPoolMXBean.class);
+        HikariDataSource dataSource = hikari(mxBean);
+        Timer acquire = Timer.builder("hikaricp.connections.acquire").tag("pool", "books")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        acquire.record(Duration.ofMillis(2));
+        acquire.record(Duration.ofMillis(40));
+
+        DatabaseProbe probe = probe(dataSource, Duration.ofMinutes(1), Duration.ZERO);
+        ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(probe);
+        when(mxBean.getActiveConnections()).thenReturn(10);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(3);
+        probe.samplePool();
+        Health saturated = indicator.health();
+
+        assertEquals(Status.DOWN, saturated.getStatus());
+        assertEquals(3, saturated.getDetails().get("pendingThreads"));
+        assertEquals(10, saturated.getDetails().get("active"));
+        assertTrue(((Map<?, ?>) saturated.getDetails().get("acquireMillis")).containsKey("p99"));
+
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(0);
+        probe.samplePool();
+        assertEquals(Status.UP, indicator.health().getStatus());
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    void poolHealthShouldIgnoreBriefWaits() throws SQLException {
+        HikariPoolMXBean mxBean = mock(HikariPoolMXBean.class);
+        when(mxBean.getThreadsAwaitingConnection()).thenReturn(3);
+
+        DatabaseProbe probe = probe(hikari(mxBean), Duration.ofMinutes(1), Duration.ofMinutes(1));
+        probe.samplePool();
+
+        assertEquals(Status.UP, new ConnectionPoolHealthIndicator(probe).health().getStatus());
+    }
+
+    private DatabaseProbe probe(DataSource dataSource, Duration staleAfter, Duration saturatedAfter) {
+        return new DatabaseProbe(dataSource, meterRegistry, Duration.ofSeconds(5), Duration.ofSeconds(1), staleAfter,
+                Duration.ofSeconds(1), 0, saturatedAfter);
+    }
+
+    private static HikariDataSource hikari(HikariPoolMXBean mxBean) throws SQLException {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(dataSource);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(mxBean);
+        when(dataSource.getPoolName()).thenReturn("books");
+        when(dataSource.getMaximumPoolSize()).thenReturn(10);
+        return dataSource;
+    }
 }
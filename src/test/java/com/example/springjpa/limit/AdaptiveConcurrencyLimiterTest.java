@@ -0,0 +1,65 @@
+package com.example.springjpa.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void shouldRejectBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.releaseWithoutSample();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldShrinkWhenLatencyRisesAndStopAtMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 100, 2.0);
+        calls(limiter, 100, 100, FAST);
+        int steady = limiter.getLimit();
+
+        calls(limiter, 100, 20, SLOW);
+        assertThat(limiter.getLimit()).isLessThan(steady);
+
+        calls(limiter, 100, 50, SLOW * 100);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldGrowOnlyWhileTheLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 2.0);
+
+        calls(limiter, 1, 100, FAST);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        calls(limiter, 10, 100, FAST);
+        assertThat(limiter.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(20);
+
+        calls(limiter, 100, 100, FAST);
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    // rounds of `concurrency` overlapping calls that all take `rtt`
+    private static void calls(AdaptiveConcurrencyLimiter limiter, int concurrency, int rounds, long rtt) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (admitted < concurrency && limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(rtt);
+            }
+        }
+    }
+}
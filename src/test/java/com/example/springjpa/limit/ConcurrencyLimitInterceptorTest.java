@@ -0,0 +1,113 @@
+package com.example.springjpa.limit;
+
+import com.example.springjpa.exception.OverloadedException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Operations operations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        ProxyFactory proxyFactory = new ProxyFactory(new Operations());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new ConcurrencyLimitInterceptor(
+                operationClass -> new AdaptiveConcurrencyLimiter(operationClass == OperationClass.READ ? 5 : 1, 1, 5, 2.0),
+                () -> bulkheads, () -> meterRegistry, Duration.ofSeconds(2)));
+        operations = (Operations) proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldRejectWhenTheBulkheadIsFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> held = CompletableFuture.runAsync(() -> operations.read(entered, release));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> operations.read(null, null))
+                .isInstanceOf(OverloadedException.class)
+                .hasMessageContaining("read")
+                .extracting(e -> ((OverloadedException) e).getRetryAfter()).isEqualTo(Duration.ofSeconds(2));
+        // the other class has its own bulkhead
+        operations.write(null, null);
+
+        release.countDown();
+        held.get(5, TimeUnit.SECONDS);
+        operations.read(null, null);
+        assertThat(rejections("read", "bulkhead")).isEqualTo(1);
+        assertThat(meterRegistry.get("book.limiter.in-flight").tag("class", "read").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldRejectWhenTheAdaptiveLimitIsReached() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> held = CompletableFuture.runAsync(() -> operations.write(entered, release));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> operations.write(null, null)).isInstanceOf(OverloadedException.class);
+
+        release.countDown();
+        held.get(5, TimeUnit.SECONDS);
+        assertThat(rejections("write", "limit")).isEqualTo(1);
+        assertThat(meterRegistry.get("book.limiter.limit").tag("class", "write").gauge().value()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveUnannotatedMethodsAlone() {
+        assertThat(operations.unlimited()).isEqualTo("ok");
+        assertThat(meterRegistry.find("book.limiter.limit").gauges()).isEmpty();
+    }
+
+    private double rejections(String operationClass, String reason) {
+        return meterRegistry.get("book.limiter.rejections").tag("class", operationClass).tag("reason", reason).counter().count();
+    }
+
+    static class Operations {
+
+        @ConcurrencyLimited(OperationClass.READ)
+        public void read(CountDownLatch entered, CountDownLatch release) {
+            hold(entered, release);
+        }
+
+        @ConcurrencyLimited(OperationClass.WRITE)
+        public void write(CountDownLatch entered, CountDownLatch release) {
+            hold(entered, release);
+        }
+
+        public String unlimited() {
+            return "ok";
+        }
+
+        private static void hold(CountDownLatch entered, CountDownLatch release) {
+            if (entered == null) {
+                return;
+            }
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.springjpa.limit;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "book.limiter.enabled=true",
+        "book.limiter.retry-after=3s",
+        "resilience4j.bulkhead.instances.bookReads.maxConcurrentCalls=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConcurrencyLimitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BookRepository bookRepository;
+
+    @Test
+    void shouldShedReadsBeyondTheBulkheadButServeCacheHits() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findById(1)).thenReturn(Optional.of(new Book(1, "Cached", null)));
+        when(bookRepository.findResponses(any(Pageable.class))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new PageImpl<>(List.of(), invocation.getArgument(0), 0);
+        });
+        mockMvc.perform(get("/api/v1/books/1")).andExpect(status().isOk());
+
+        CompletableFuture<Void> held = CompletableFuture.runAsync(() -> {
+            try {
+                mockMvc.perform(get("/api/v1/books")).andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(get("/api/v1/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("Cached"));
+
+        release.countDown();
+        held.get(5, TimeUnit.SECONDS);
+    }
+}
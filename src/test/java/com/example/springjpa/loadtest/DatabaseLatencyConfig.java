@@ -0,0 +1,117 @@
+package com.example.springjpa.loadtest;
+
+import com.example.springjpa.reactive.ReactiveBookRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Makes the embedded database behave like one across a network: every statement execution
+ * holds its connection for {@code loadtest.db-latency-ms} extra milliseconds. R2DBC statements
+ * are delayed by the same amount, without blocking the calling thread.
+ */
+@TestConfiguration
+public class DatabaseLatencyConfig {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch");
+
+    @Bean
+    static BeanPostProcessor databaseLatencyPostProcessor(@Value("${loadtest.db-latency-ms:0}") long latencyMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (latencyMillis > 0 && bean instanceof ReactiveBookRepository repository) {
+                    return new ReactiveBookRepository(
+                            slowConnectionFactory(repository.getConnectionFactory(), Duration.ofMillis(latencyMillis)));
+                }
+                if (latencyMillis <= 0 || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return new DelegatingDataSource(dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        return slowConnection(super.getConnection(), latencyMillis);
+                    }
+                };
+            }
+        };
+    }
+
+    private static Connection slowConnection(Connection connection, long latencyMillis) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement) {
+                        return slowStatement(statement, latencyMillis);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement slowStatement(PreparedStatement statement, long latencyMillis) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (EXECUTE_METHODS.contains(method.getName())) {
+                        Thread.sleep(latencyMillis);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static ConnectionFactory slowConnectionFactory(ConnectionFactory connectionFactory, Duration latency) {
+        // keeps the pool's Disposable so that closing the repository still releases it
+        return (ConnectionFactory) proxy(ClassUtils.getAllInterfaces(connectionFactory), connectionFactory,
+                (method, result) -> method.getName().equals("create")
+                ? Mono.from((Publisher<?>) result).map(connection ->
+                        proxy(new Class<?>[]{io.r2dbc.spi.Connection.class}, connection,
+                                (connectionMethod, created) -> created instanceof Statement statement
+                                        ? slowR2dbcStatement(statement, latency)
+                                        : created))
+                : result);
+    }
+
+    private static Statement slowR2dbcStatement(Statement statement, Duration latency) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("execute")) {
+                        return Mono.delay(latency).thenMany(Flux.defer(() -> statement.execute()));
+                    }
+                    Object result = invoke(statement, method, args);
+                    // bind(...) and friends return the statement itself for chaining
+                    return result == statement ? proxy : result;
+                });
+    }
+
+    private static Object proxy(Class<?>[] types, Object target, BiFunction<Method, Object, Object> onResult) {
+        return Proxy.newProxyInstance(DatabaseLatencyConfig.class.getClassLoader(), types,
+                (proxy, method, args) -> onResult.apply(method, invoke(target, method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springjpa.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latency percentiles and throughput for one set of requests.
+ */
+public record LatencyStats(long requests, long errors, double requestsPerSecond,
+                           double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+    static LatencyStats of(long[] latenciesNanos, long errors, double seconds) {
+        long[] sorted = latenciesNanos.clone();
+        Arrays.sort(sorted);
+        return new LatencyStats(sorted.length, errors, sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%8d req %6d err %10.1f req/s   p50 %7.2f ms   p95 %7.2f ms   p99 %7.2f ms   max %8.2f ms",
+                requests, errors, requestsPerSecond, p50Ms, p95Ms, p99Ms, maxMs);
+    }
+}
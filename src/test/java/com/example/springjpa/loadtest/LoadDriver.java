@@ -0,0 +1,118 @@
+package com.example.springjpa.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop HTTP load: each client sends its next request as soon as the previous one completes.
+ * Clients run on virtual threads so the driver itself is never the bottleneck.
+ */
+public class LoadDriver {
+
+    private final HttpClient httpClient;
+    private final int clients;
+
+    public LoadDriver(int clients) {
+        this.clients = clients;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Runs a warm-up phase (not recorded) followed by the measured phase.
+     */
+    public LatencyStats run(Duration warmup, Duration duration, Supplier<HttpRequest> requests) throws InterruptedException {
+        return run(warmup, duration, LoadMix.of("request", requests)).total();
+    }
+
+    /**
+     * Runs a warm-up phase (not recorded) followed by the measured phase, drawing each request from the mix.
+     */
+    public LoadResult run(Duration warmup, Duration duration, LoadMix mix) throws InterruptedException {
+        drive(warmup, mix);
+        return drive(duration, mix);
+    }
+
+    private LoadResult drive(Duration duration, LoadMix mix) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Map<String, ClientRecorder>> clientRecorders = new ArrayList<>(clients);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                Map<String, ClientRecorder> recorders = new HashMap<>();
+                clientRecorders.add(recorders);
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        LoadMix.Endpoint endpoint = mix.next();
+                        recorders.computeIfAbsent(endpoint.name(), name -> new ClientRecorder())
+                                .send(httpClient, endpoint.requests().get());
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<String, LatencyStats> endpoints = new LinkedHashMap<>();
+        for (LoadMix.Endpoint endpoint : mix.endpoints()) {
+            List<ClientRecorder> recorders = clientRecorders.stream()
+                    .map(byEndpoint -> byEndpoint.get(endpoint.name()))
+                    .filter(Objects::nonNull)
+                    .toList();
+            endpoints.put(endpoint.name(), stats(recorders, seconds));
+        }
+        List<ClientRecorder> all = clientRecorders.stream().flatMap(byEndpoint -> byEndpoint.values().stream()).toList();
+        return new LoadResult(clients, endpoints, stats(all, seconds));
+    }
+
+    private static LatencyStats stats(List<ClientRecorder> recorders, double seconds) {
+        long errors = recorders.stream().mapToLong(recorder -> recorder.errors).sum();
+        long[] latencies = recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.count))
+                .toArray();
+        return LatencyStats.of(latencies, errors, seconds);
+    }
+
+    private static class ClientRecorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void send(HttpClient httpClient, HttpRequest request) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 500) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.springjpa.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * A weighted set of named endpoints. Every request a client sends is drawn from the mix
+ * independently, so over a run each endpoint receives roughly its share of the traffic.
+ */
+public class LoadMix {
+
+    public record Endpoint(String name, int weight, Supplier<HttpRequest> requests) {
+    }
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private int totalWeight;
+
+    public static LoadMix of(String name, Supplier<HttpRequest> requests) {
+        return new LoadMix().add(name, 1, requests);
+    }
+
+    /**
+     * Adds an endpoint; a weight of zero leaves it out of the run.
+     */
+    public LoadMix add(String name, int weight, Supplier<HttpRequest> requests) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of '" + name + "' must not be negative");
+        }
+        if (weight > 0) {
+            endpoints.add(new Endpoint(name, weight, requests));
+            totalWeight += weight;
+        }
+        return this;
+    }
+
+    public List<Endpoint> endpoints() {
+        return List.copyOf(endpoints);
+    }
+
+    Endpoint next() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            pick -= endpoint.weight();
+            if (pick < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.springjpa.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tab-separated report of a load run: one row per endpoint plus a total row, preceded by
+ * {@code #} lines describing the run. The layout is fixed so reports from two builds can be diffed.
+ */
+public final class LoadReport {
+
+    private static final String HEADER = "endpoint\trequests\terrors\treq_per_s\tp50_ms\tp95_ms\tp99_ms\tmax_ms";
+
+    private LoadReport() {
+    }
+
+    public static List<String> lines(LoadResult result, Map<String, String> settings) {
+        List<String> lines = new ArrayList<>();
+        lines.add("# clients=" + result.clients());
+        settings.forEach((key, value) -> lines.add("# " + key + "=" + value));
+        lines.add(HEADER);
+        result.endpoints().forEach((endpoint, stats) -> lines.add(row(endpoint, stats)));
+        lines.add(row("total", result.total()));
+        return lines;
+    }
+
+    public static Path write(Path file, LoadResult result, Map<String, String> settings) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return Files.write(file, lines(result, settings));
+    }
+
+    private static String row(String endpoint, LatencyStats stats) {
+        return String.format(Locale.ROOT, "%s\t%d\t%d\t%.1f\t%.2f\t%.2f\t%.2f\t%.2f",
+                endpoint, stats.requests(), stats.errors(), stats.requestsPerSecond(),
+                stats.p50Ms(), stats.p95Ms(), stats.p99Ms(), stats.maxMs());
+    }
+}
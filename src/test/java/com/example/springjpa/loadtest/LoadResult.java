@@ -0,0 +1,9 @@
+package com.example.springjpa.loadtest;
+
+import java.util.Map;
+
+/**
+ * Statistics of one measured run, per endpoint (in mix order) and over all requests.
+ */
+public record LoadResult(int clients, Map<String, LatencyStats> endpoints, LatencyStats total) {
+}
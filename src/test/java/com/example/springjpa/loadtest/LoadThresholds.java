@@ -0,0 +1,32 @@
+package com.example.springjpa.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pass/fail limits for a load run. A minimum of zero disables the throughput check, and
+ * endpoints without a p99 entry are not checked for latency.
+ */
+public record LoadThresholds(double maxErrorRate, double minRequestsPerSecond, Map<String, Double> maxP99Ms) {
+
+    public List<String> violations(LoadResult result) {
+        List<String> violations = new ArrayList<>();
+        LatencyStats total = result.total();
+        double errorRate = total.requests() == 0 ? 1 : (double) total.errors() / total.requests();
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format("error rate %.4f exceeds %.4f", errorRate, maxErrorRate));
+        }
+        if (total.requestsPerSecond() < minRequestsPerSecond) {
+            violations.add(String.format("throughput %.1f req/s is below %.1f req/s",
+                    total.requestsPerSecond(), minRequestsPerSecond));
+        }
+        result.endpoints().forEach((endpoint, stats) -> {
+            Double limit = maxP99Ms.get(endpoint);
+            if (limit != null && stats.p99Ms() > limit) {
+                violations.add(String.format("%s p99 %.2f ms exceeds %.2f ms", endpoint, stats.p99Ms(), limit));
+            }
+        });
+        return violations;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springjpa.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parses {@code name=value} pairs separated by commas, e.g. {@code list=40,get=40,create=20},
+ * keeping their order.
+ */
+public final class NamedValues {
+
+    private NamedValues() {
+    }
+
+    public static <T> Map<String, T> parse(String spec, Function<String, T> valueParser) {
+        Map<String, T> values = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected name=value but got '" + entry.trim() + "'");
+            }
+            values.put(parts[0].trim(), valueParser.apply(parts[1].trim()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.springjpa.mapper;
+
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.ApiResponse;
+import com.example.springjpa.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CacheManager cacheManager;
+    private BookResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.BOOK_RESPONSES_CACHE);
+        responseCache = new BookResponseCache(objectMapper, cacheManager, true);
+    }
+
+    @Test
+    void shouldEncodeSameBodyAsController() throws Exception {
+        Book book = new Book(1, "Book A", "Desc A", 2);
+
+        byte[] json = responseCache.found(book);
+
+        assertThat(json).isEqualTo(objectMapper.writeValueAsBytes(
+                ApiResponse.success("Book found", BookMapper.toResponse(book))));
+    }
+
+    @Test
+    void shouldReuseBytesOnlyForSameVersion() {
+        byte[] first = responseCache.found(new Book(1, "Book A", "Desc A", 2));
+
+        assertThat(responseCache.found(new Book(1, "Book A", "Desc A", 2))).isSameAs(first);
+
+        byte[] updated = responseCache.found(new Book(1, "Book A v2", "Desc A", 3));
+        assertThat(updated).isNotSameAs(first);
+        assertThat(new String(updated)).contains("Book A v2");
+    }
+
+    @Test
+    void shouldStayDisabledWithoutCache() {
+        CacheManager withoutResponses = new ConcurrentMapCacheManager(CacheConfig.BOOKS_CACHE);
+
+        assertThat(new BookResponseCache(objectMapper, withoutResponses, true).isEnabled()).isFalse();
+        assertThat(new BookResponseCache(objectMapper, cacheManager, false).isEnabled()).isFalse();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.springjpa.metrics;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstrumentationInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Operations operations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        operations = instrument(new Operations(), meterRegistry);
+    }
+
+    @Test
+    void shouldRegisterEveryOutcomeOnFirstCall() {
+        operations.succeed();
+
+        assertThat(meterRegistry.find("test.operations").tag("operation", "succeed").timers())
+                .extracting(timer -> timer.getId().getTag("outcome"))
+                .containsExactlyInAnyOrder("success", "fallback", "circuit_open", "exception");
+        assertThat(count("succeed", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagThrownExceptions() {
+        assertThatThrownBy(() -> operations.fail()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(count("fail", "exception")).isEqualTo(1);
+        assertThat(count("fail", "success")).isZero();
+    }
+
+    @Test
+    void shouldTagRecordedFallbacks() {
+        operations.fallBack(new IllegalStateException("database down"));
+
+        assertThat(count("fallBack", "fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagOpenCircuit() {
+        CallNotPermittedException notPermitted =
+                CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("test"));
+
+        operations.fallBack(notPermitted);
+        assertThatThrownBy(() -> operations.reject(notPermitted)).isSameAs(notPermitted);
+
+        assertThat(count("fallBack", "circuit_open")).isEqualTo(1);
+        assertThat(count("reject", "circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepNestedFallbacksToTheInnerCall() {
+        operations.callFallBack();
+
+        assertThat(count("fallBack", "fallback")).isEqualTo(1);
+        assertThat(count("callFallBack", "success")).isEqualTo(1);
+
+        operations.succeed();
+        assertThat(count("succeed", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishPercentileHistograms() {
+        PrometheusMeterRegistry prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+        instrument(new Operations(), prometheusRegistry).succeed();
+
+        assertThat(prometheusRegistry.scrape())
+                .contains("test_operations_seconds_bucket{operation=\"succeed\",outcome=\"success\",le=");
+    }
+
+    private static Operations instrument(Operations target, MeterRegistry meterRegistry) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new InstrumentationInterceptor(() -> meterRegistry));
+        Operations proxy = (Operations) proxyFactory.getProxy();
+        target.self = proxy;
+        return proxy;
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get("test.operations").tags("operation", operation, "outcome", outcome).timer().count();
+    }
+
+    @Instrumented("test.operations")
+    static class Operations {
+
+        Operations self;
+
+        public String succeed() {
+            return "ok";
+        }
+
+        public String fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        public String fallBack(Throwable cause) {
+            Outcome.recordFallback(cause);
+            return "fallback";
+        }
+
+        public String reject(CallNotPermittedException e) {
+            throw e;
+        }
+
+        public String callFallBack() {
+            return self.fallBack(new IllegalStateException("inner failure"));
+        }
+    }
+}
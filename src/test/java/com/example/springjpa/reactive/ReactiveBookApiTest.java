@@ -0,0 +1,182 @@
+package com.example.springjpa.reactive;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import com.example.springjpa.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.DisposableServer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"book.reactive.enabled=true", "book.reactive.port=0"})
+@ActiveProfiles("test")
+class ReactiveBookApiTest {
+
+    @Autowired
+    private DisposableServer reactiveServer;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private BookService bookService;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveServer.port()).build();
+    }
+
+    @Test
+    void shouldCreateReadUpdateAndDeleteBook() {
+        JsonNode created = client.post().uri("/api/v2/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Reactive", "description", "Over R2DBC"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(JsonNode.class).returnResult().getResponseBody();
+        assertThat(created.path("message").asText()).isEqualTo("Book created successfully");
+        int id = created.path("data").path("id").asInt();
+        assertThat(repository.findById(id)).get().extracting(Book::getTitle).isEqualTo("Reactive");
+
+        client.get().uri("/api/v2/books/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Book found")
+                .jsonPath("$.data.description").isEqualTo("Over R2DBC");
+
+        client.put().uri("/api/v2/books/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Reactive v2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Book updated successfully")
+                .jsonPath("$.data.title").isEqualTo("Reactive v2");
+
+        client.put().uri("/api/v2/books/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Stale"))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.message").isEqualTo("Book was modified by another request; reload it and retry");
+
+        client.delete().uri("/api/v2/books/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.message").isEqualTo("Book deleted successfully");
+
+        client.get().uri("/api/v2/books/{id}", id)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Book not found");
+    }
+
+    @Test
+    void shouldRejectInvalidBook() {
+        client.post().uri("/api/v2/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("description", "No title"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Invalid book: title is required");
+    }
+
+    @Test
+    void shouldRejectInvalidUpdate() {
+        Book saved = repository.save(new Book(0, "Valid", null));
+
+        client.put().uri("/api/v2/books/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", " "))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Invalid book: title is required");
+        client.put().uri("/api/v2/books/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "x".repeat(101)))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        assertThat(repository.findById(saved.getId())).get().extracting(Book::getTitle).isEqualTo("Valid");
+    }
+
+    @Test
+    void shouldPageAndStreamBooksInIdOrder() {
+        List<Book> saved = repository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> new Book(0, "Page " + i, null))
+                .toList());
+
+        client.get().uri("/api/v2/books?page=0&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Books retrieved successfully")
+                .jsonPath("$.data.content.length()").isEqualTo(2)
+                .jsonPath("$.data.page").isEqualTo(0)
+                .jsonPath("$.data.size").isEqualTo(2)
+                .jsonPath("$.data.totalElements").isEqualTo((int) repository.count())
+                .jsonPath("$.data.totalPages").isEqualTo((int) (repository.count() + 1) / 2)
+                .jsonPath("$.data.pageable").doesNotExist()
+                .jsonPath("$.data.sort").doesNotExist();
+
+        List<JsonNode> streamed = client.get().uri("/api/v2/books?page=0&size=1000")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(JsonNode.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(streamed).extracting(node -> node.path("id").asInt())
+                .isSorted()
+                .containsAll(saved.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void shouldEvictV1CacheOnWrite() {
+        Book book = bookService.createBook(new Book(0, "Cached", "v1"));
+        assertThat(bookService.getBookById(book.getId())).get().extracting(Book::getTitle).isEqualTo("Cached");
+
+        client.put().uri("/api/v2/books/{id}", book.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Updated in v2"))
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(bookService.getBookById(book.getId())).get().extracting(Book::getTitle).isEqualTo("Updated in v2");
+    }
+
+    @Test
+    void shouldNotReuseIdsHandedOutByJpa() {
+        Book jpa = repository.save(new Book(0, "From JPA", null));
+        int id = client.post().uri("/api/v2/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "From R2DBC"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(JsonNode.class).returnResult().getResponseBody()
+                .path("data").path("id").asInt();
+        Book next = repository.save(new Book(0, "From JPA again", null));
+
+        assertThat(List.of(jpa.getId(), id, next.getId())).doesNotHaveDuplicates();
+    }
+}
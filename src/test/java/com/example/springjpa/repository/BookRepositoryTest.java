@@ -0,0 +1,99 @@
+package com.example.springjpa.repository;
+
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.model.BookVersion;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        repository.saveAllAndFlush(List.of(
+                new Book(0, "The Java Handbook", "Reference"),
+                new Book(0, "Java", "Exact title"),
+                new Book(0, "Effective Coffee", "Notes on java beans"),
+                new Book(0, "Javascript Basics", "Web"),
+                new Book(0, "100% Kotlin", "Percent sign"),
+                new Book(0, "Cooking", "Nothing relevant")));
+    }
+
+    @Test
+    void searchShouldRankExactThenPrefixThenSubstringThenDescription() {
+        Page<BookResponse> page = repository.search("java", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(BookResponse::getTitle)
+                .containsExactly("Java", "Javascript Basics", "The Java Handbook", "Effective Coffee");
+    }
+
+    @Test
+    void searchShouldPaginate() {
+        Page<BookResponse> page = repository.search("java", PageRequest.of(1, 3));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(BookResponse::getTitle).containsExactly("Effective Coffee");
+    }
+
+    @Test
+    void searchShouldTreatLikeWildcardsLiterally() {
+        assertThat(repository.search("100%", PageRequest.of(0, 10)).getContent())
+                .extracting(BookResponse::getTitle).containsExactly("100% Kotlin");
+        assertThat(repository.search("%", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void streamAllShouldReturnDetachedBooksInIdOrder() {
+        try (Stream<Book> books = repository.streamAll()) {
+            List<Book> streamed = books.toList();
+
+            assertThat(streamed).hasSize(6);
+            assertThat(streamed).extracting(Book::getId).isSorted();
+            assertThat(streamed).noneMatch(entityManager::contains);
+        }
+    }
+
+    @Test
+    void findByTitleShouldBindKeyword() {
+        assertThat(repository.findByTitle("JAVA")).hasSize(3);
+    }
+
+    @Test
+    void versionQueriesShouldMatchEntities() {
+        Book book = repository.findByDescription("Web");
+        book.setTitle("Javascript Basics, 2nd edition");
+        repository.saveAndFlush(book);
+
+        assertThat(repository.findVersionById(book.getId())).contains(1L);
+        assertThat(repository.findVersionById(-1)).isEmpty();
+
+        Page<BookVersion> versions = repository.findVersions(PageRequest.of(0, 4, Sort.by("id")));
+        Page<Book> books = repository.findAll(PageRequest.of(0, 4, Sort.by("id")));
+        assertThat(versions.getTotalElements()).isEqualTo(6);
+        assertThat(versions.getContent()).containsExactlyElementsOf(
+                books.map(b -> new BookVersion(b.getId(), b.getVersion())).getContent());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.springjpa.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookSequenceInitializerTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long restartAt;
+
+    @BeforeEach
+    void rememberSequence() {
+        restartAt = nextSequenceValue();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM books");
+        jdbcTemplate.execute("ALTER SEQUENCE book_seq RESTART WITH " + restartAt);
+    }
+
+    @Test
+    void shouldRaiseTheSequencePastIdsWrittenBeforeIt() {
+        // ids an IDENTITY column handed out before book_seq existed
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 100_001; id <= 100_120; id++) {
+            rows.add(new Object[]{id, "Book " + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, version) VALUES (?, ?, 0)", rows);
+
+        new BookSequenceInitializer(entityManagerFactory, jdbcTemplate).afterPropertiesSet();
+
+        // the pooled optimizer hands out the 50 ids up to the value it reads
+        long next = nextSequenceValue();
+        assertThat(next - 49).isGreaterThan(100_120);
+    }
+
+    @Test
+    void shouldNeverLowerTheSequence() {
+        jdbcTemplate.update("INSERT INTO books (id, title, version) VALUES (10, 'Book 10', 0)");
+        jdbcTemplate.execute("ALTER SEQUENCE book_seq RESTART WITH 5000");
+
+        new BookSequenceInitializer(entityManagerFactory, jdbcTemplate).afterPropertiesSet();
+
+        assertThat(nextSequenceValue()).isGreaterThanOrEqualTo(5000);
+    }
+
+    @Test
+    void shouldLeaveTheSequenceAloneWithoutBooks() {
+        new BookSequenceInitializer(entityManagerFactory, jdbcTemplate).afterPropertiesSet();
+
+        assertThat(nextSequenceValue()).isGreaterThan(restartAt);
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR book_seq", Long.class);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.springjpa.retry;
+
+import com.example.springjpa.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load a failing database takes from book reads: every statement times out, and the amplification
+ * factor is statements sent per service call. Without a budget each call makes every attempt it is
+ * allowed; with one, retries stop once the tokens earned by earlier successes are spent.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:amplification;DB_CLOSE_DELAY=-1",
+        // keep the circuit closed so every call reaches the retry
+        "resilience4j.circuitbreaker.instances.bookService.minimumNumberOfCalls=1000",
+        "resilience4j.circuitbreaker.instances.bookService.slidingWindowSize=1000",
+        "book.retry.max-attempts=3",
+        "book.retry.initial-backoff=1ms",
+        "book.retry.max-backoff=2ms"
+})
+@ActiveProfiles("test")
+@Import(RetryAmplificationTest.FailingDatabaseConfig.class)
+class RetryAmplificationTest {
+
+    private static final int CALLS = 200;
+
+    private static final AtomicBoolean FAILING = new AtomicBoolean();
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+    private static final Map<String, Double> RESULTS = new LinkedHashMap<>();
+
+    @AfterAll
+    static void report() {
+        System.out.printf("%n%d reads against a database where every statement times out%n", CALLS);
+        RESULTS.forEach((policy, factor) -> System.out.printf("%-14s %.2f statements per call%n", policy, factor));
+    }
+
+    abstract static class Policy {
+
+        @Autowired
+        BookService bookService;
+
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        double amplification(String policy) {
+            // a healthy start fills the budget
+            for (int i = 0; i < 100; i++) {
+                bookService.getAllBooks(PageRequest.of(0, 10));
+            }
+            FAILING.set(true);
+            STATEMENTS.set(0);
+            try {
+                for (int i = 0; i < CALLS; i++) {
+                    assertThat(bookService.getAllBooks(PageRequest.of(0, 10))).isEmpty();
+                }
+            } finally {
+                FAILING.set(false);
+            }
+            double factor = (double) STATEMENTS.get() / CALLS;
+            RESULTS.put(policy, factor);
+            return factor;
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "book.retry.budget.max-tokens=1000000")
+    class Unbudgeted extends Policy {
+
+        @Test
+        void shouldSendEveryAttemptToTheDatabase() {
+            assertThat(amplification("no budget")).isEqualTo(3.0);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"book.retry.budget.ratio=0.1", "book.retry.budget.max-tokens=10"})
+    class Budgeted extends Policy {
+
+        @Test
+        void shouldFallBackToOneAttemptPerCall() {
+            // the ten stored tokens pay for two retries each of the first five calls, the rest fail once
+            assertThat(amplification("budget 10%")).isEqualTo(1.05);
+            assertThat(meterRegistry.get("book.retry.budget.exhausted").tag("class", "read").counter().count())
+                    .isEqualTo(CALLS - 5);
+        }
+    }
+
+    @TestConfiguration
+    static class FailingDatabaseConfig {
+
+        @Bean
+        static BeanPostProcessor failingDatabasePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return failingConnection(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection failingConnection(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement") && FAILING.get()) {
+                            STATEMENTS.incrementAndGet();
+                            throw new SQLTimeoutException("simulated: statement timed out", "HYT00");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
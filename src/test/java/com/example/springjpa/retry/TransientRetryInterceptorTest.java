@@ -0,0 +1,119 @@
+package com.example.springjpa.retry;
+
+import com.example.springjpa.limit.OperationClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransientRetryInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RetryBudget budget;
+    private Operations target;
+    private Operations operations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        budget = new RetryBudget(0.5, 2);
+        target = new Operations();
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransientRetryInterceptor(budget, 3, Duration.ofMillis(1), Duration.ofMillis(5),
+                () -> meterRegistry));
+        operations = (Operations) proxyFactory.getProxy();
+    }
+
+    @Test
+    void shouldRetryTransientFailuresUntilOneSucceeds() {
+        target.failures = 2;
+        target.failure = new QueryTimeoutException("statement timed out");
+
+        assertThat(operations.read()).isEqualTo("ok");
+        assertThat(target.calls).hasValue(3);
+        assertThat(meterRegistry.get("book.retry.retries").tag("class", "read").counter().count()).isEqualTo(2);
+        // two tokens spent, half a token earned back by the success
+        assertThat(budget.getTokens()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldNotRetryFailuresThatAreNotTransient() {
+        target.failures = 5;
+        target.failure = new DataAccessResourceFailureException("disk full");
+        assertThatThrownBy(() -> operations.read()).isSameAs(target.failure);
+        assertThat(target.calls).hasValue(1);
+
+        target.calls.set(0);
+        target.failure = new ObjectOptimisticLockingFailureException("Book", 1);
+        assertThatThrownBy(() -> operations.write()).isSameAs(target.failure);
+        assertThat(target.calls).hasValue(1);
+    }
+
+    @Test
+    void shouldRetryLostConnectionsForReadsOnly() {
+        target.failures = 1;
+        target.failure = new RecoverableDataAccessException("connection reset");
+        assertThat(operations.read()).isEqualTo("ok");
+        assertThat(target.calls).hasValue(2);
+
+        target.calls.set(0);
+        target.failures = 1;
+        // the write may have committed before the connection dropped
+        assertThatThrownBy(() -> operations.write()).isSameAs(target.failure);
+        assertThat(target.calls).hasValue(1);
+    }
+
+    @Test
+    void shouldStopRetryingOnceTheBudgetIsSpent() {
+        target.failures = Integer.MAX_VALUE;
+        target.failure = new QueryTimeoutException("statement timed out");
+
+        assertThatThrownBy(() -> operations.write()).isSameAs(target.failure);
+        assertThat(target.calls).hasValue(3);
+        assertThatThrownBy(() -> operations.write()).isSameAs(target.failure);
+        assertThat(target.calls).hasValue(4);
+
+        assertThat(meterRegistry.get("book.retry.budget.exhausted").tag("class", "write").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.retry.budget.tokens").gauge().value()).isZero();
+
+        // successes refill the bucket
+        target.failures = 0;
+        operations.write();
+        operations.write();
+        assertThat(budget.tryWithdraw()).isTrue();
+    }
+
+    static class Operations {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile int failures;
+        volatile RuntimeException failure;
+
+        @TransientRetry(OperationClass.READ)
+        public String read() {
+            return call();
+        }
+
+        @TransientRetry(OperationClass.WRITE)
+        public String write() {
+            return call();
+        }
+
+        private String call() {
+            if (calls.incrementAndGet() <= failures) {
+                throw failure;
+            }
+            return "ok";
+        }
+    }
+}
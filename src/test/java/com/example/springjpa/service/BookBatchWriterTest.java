@@ -0,0 +1,92 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(BookBatchWriter.class)
+@TestPropertySource(properties = "book.batch.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookBatchWriterTest {
+
+    @Autowired
+    private BookBatchWriter batchWriter;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("ALTER TABLE books DROP CONSTRAINT IF EXISTS chk_books_not_rejected");
+        repository.deleteAll();
+    }
+
+    @Test
+    void shouldInsertAllValidBooksAcrossChunks() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            books.add(new Book(0, "Book " + i, "Desc " + i));
+        }
+
+        List<BookBatchResult> results = batchWriter.insertAll(books);
+
+        assertThat(results).hasSize(5).allMatch(BookBatchResult::isSuccess);
+        assertThat(results).extracting(BookBatchResult::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(repository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldReportInvalidItemsWithoutFailingTheirChunk() {
+        List<Book> books = List.of(
+                new Book(0, "Book A", "Desc A"),
+                new Book(0, " ", "blank title"),
+                new Book(0, "Book C", "x".repeat(101)),
+                new Book(0, "Book D", null));
+
+        List<BookBatchResult> results = batchWriter.insertAll(books);
+
+        assertThat(results).extracting(BookBatchResult::isSuccess).containsExactly(true, false, false, true);
+        assertThat(results.get(1).getError()).isEqualTo("title is required");
+        assertThat(results.get(2).getError()).contains("description");
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRetryRowByRowWhenTheDatabaseRejectsARowOfAChunk() {
+        // passes validation, fails only in the database
+        jdbcTemplate.execute("ALTER TABLE books ADD CONSTRAINT chk_books_not_rejected CHECK (title <> 'Rejected')");
+        List<Book> books = List.of(
+                new Book(0, "Book A", "Desc A"),
+                new Book(0, "Rejected", "Desc B"),
+                new Book(0, "Book C", "Desc C"));
+
+        List<BookBatchResult> results = batchWriter.insertAll(books);
+
+        assertThat(results).extracting(BookBatchResult::isSuccess).containsExactly(true, false, true);
+        assertThat(results.get(1).getError()).containsIgnoringCase("chk_books_not_rejected");
+        assertThat(results.get(1).getId()).isNull();
+        assertThat(repository.findAll()).extracting(Book::getTitle).containsExactlyInAnyOrder("Book A", "Book C");
+    }
+}
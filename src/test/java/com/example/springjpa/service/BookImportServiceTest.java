@@ -0,0 +1,173 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.dto.BookImportResult;
+import com.example.springjpa.format.BookFileFormat;
+import com.example.springjpa.format.BookRecordReader;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(BookBatchWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceTest {
+
+    @Autowired
+    private BookBatchWriter batchWriter;
+
+    @Autowired
+    private BookRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private BookImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        importService = new BookImportService(batchWriter, meterRegistry, 2, 10);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportBadLines() throws IOException {
+        String upload = """
+                {"title":"Book A","description":"Desc A"}
+                not json
+
+                {"description":"no title"}
+                {"title":"Book B"}
+                {"title":"Book C","description":"Desc C"}
+                """;
+
+        BookImportResult result = importService.importBooks(reader(BookFileFormat.NDJSON, upload));
+
+        assertThat(result.getProcessed()).isEqualTo(5);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting("line").containsExactlyInAnyOrder(2L, 4L);
+        assertThat(result.isErrorsTruncated()).isFalse();
+        assertThat(repository.findAll()).extracting(Book::getTitle)
+                .containsExactlyInAnyOrder("Book A", "Book B", "Book C");
+        assertThat(meterRegistry.counter("book.importBooks.rows").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void shouldImportCsvWithQuotedMultiLineFields() throws IOException {
+        String upload = """
+                id,title,description
+                7,"Hello, ""World\""","first line
+                second line"
+                8,Plain,
+                9
+                """;
+
+        BookImportResult result = importService.importBooks(reader(BookFileFormat.CSV, upload));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getLine()).isEqualTo(5);
+        assertThat(repository.findAll())
+                .extracting(Book::getTitle, Book::getDescription)
+                .containsExactlyInAnyOrder(
+                        tuple("Hello, \"World\"", "first line\nsecond line"),
+                        tuple("Plain", null));
+    }
+
+    @Test
+    void shouldCapReportedErrors() throws IOException {
+        importService = new BookImportService(batchWriter, meterRegistry, 2, 1);
+
+        BookImportResult result = importService.importBooks(reader(BookFileFormat.NDJSON, "x\ny\nz\n"));
+
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.isErrorsTruncated()).isTrue();
+    }
+
+    @Test
+    void shouldSkipAnOversizedNdjsonLineWithoutBufferingIt() throws IOException {
+        Reader upload = withHugeLine("{\"title\":\"Book A\"}\n{\"title\":\"", "\"}\n{\"title\":\"Book B\"}\n");
+
+        BookImportResult result = importService.importBooks(
+                BookFileFormat.NDJSON.openReader(new BufferedReader(upload), objectMapper));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("line").containsExactly(2L);
+        assertThat(result.getErrors().get(0).getMessage()).contains("line longer than");
+        assertThat(repository.findAll()).extracting(Book::getTitle).containsExactlyInAnyOrder("Book A", "Book B");
+    }
+
+    @Test
+    void shouldSkipAnOversizedCsvLineWithoutBufferingIt() throws IOException {
+        Reader upload = withHugeLine("title,description\nBook A,Desc A\nBook X,", "\nBook B,Desc B\n");
+
+        BookImportResult result = importService.importBooks(
+                BookFileFormat.CSV.openReader(new BufferedReader(upload), objectMapper));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("line").containsExactly(3L);
+        assertThat(repository.findAll()).extracting(Book::getTitle).containsExactlyInAnyOrder("Book A", "Book B");
+    }
+
+    // 256 MB of 'x' between head and tail, generated as it is read
+    private static Reader withHugeLine(String head, String tail) {
+        long hugeLength = 256L * 1024 * 1024;
+        return new Reader() {
+            private final Reader before = new StringReader(head);
+            private final Reader after = new StringReader(tail);
+            private long remaining = hugeLength;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = before.read(buffer, offset, length);
+                if (read > 0) {
+                    return read;
+                }
+                if (remaining > 0) {
+                    int count = (int) Math.min(length, remaining);
+                    Arrays.fill(buffer, offset, offset + count, 'x');
+                    remaining -= count;
+                    return count;
+                }
+                return after.read(buffer, offset, length);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private BookRecordReader reader(BookFileFormat format, String upload) throws IOException {
+        return format.openReader(new BufferedReader(new StringReader(upload)), objectMapper);
+    }
+}
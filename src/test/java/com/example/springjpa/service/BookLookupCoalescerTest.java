@@ -0,0 +1,124 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+
+@ExtendWith(MockitoExtension.class)
+class BookLookupCoalescerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldUseFindByIdWhenDisabled() {
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A")));
+
+        Optional<Book> book = coalescer(false, Duration.ofSeconds(1), 10).findById(1);
+
+        assertThat(book).isPresent();
+        Mockito.verify(bookRepository, Mockito.never()).findAllById(anyIterable());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldServeConcurrentLookupsWithOneQuery() throws Exception {
+        Mockito.when(bookRepository.findAllById(anyIterable())).thenAnswer(invocation ->
+                StreamSupport.stream(((Iterable<Integer>) invocation.getArgument(0)).spliterator(), false)
+                        .filter(id -> id != 5)
+                        .map(id -> new Book(id, "Book " + id, null))
+                        .toList());
+        // the batch fills up at exactly the number of lookups, so the long window is never waited out
+        BookLookupCoalescer coalescer = coalescer(true, Duration.ofSeconds(30), 8);
+
+        List<Optional<Book>> results = lookUpConcurrently(coalescer, IntStream.rangeClosed(1, 8));
+
+        ArgumentCaptor<Iterable<Integer>> ids = ArgumentCaptor.forClass(Iterable.class);
+        Mockito.verify(bookRepository).findAllById(ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(results.get(0)).get().extracting(Book::getId).isEqualTo(1);
+        assertThat(results.get(4)).isEmpty();
+        assertThat(results.get(7)).get().extracting(Book::getId).isEqualTo(8);
+        Mockito.verify(bookRepository, Mockito.never()).findById(any());
+
+        assertThat(meterRegistry.get("book.coalescer.batch.size").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.coalescer.batch.size").summary().totalAmount()).isEqualTo(8);
+        assertThat(meterRegistry.get("book.coalescer.wait").timer().count()).isEqualTo(8);
+    }
+
+    @Test
+    void shouldQueryRepeatedIdOnce() throws Exception {
+        Mockito.when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(new Book(1, "Book A", null)));
+
+        List<Optional<Book>> results = lookUpConcurrently(coalescer(true, Duration.ofMillis(500), 100), IntStream.of(1, 1, 1));
+
+        assertThat(results).allSatisfy(book -> assertThat(book).get().extracting(Book::getId).isEqualTo(1));
+        assertThat(meterRegistry.get("book.coalescer.batch.size").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDispatchAfterTheWindow() {
+        Mockito.when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(new Book(1, "Book A", null)));
+
+        long start = System.nanoTime();
+        Optional<Book> book = coalescer(true, Duration.ofMillis(20), 100).findById(1);
+
+        assertThat(book).isPresent();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+        assertThat(meterRegistry.get("book.coalescer.batch.size").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailEveryCallerOfAFailedBatch() {
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("database down");
+        Mockito.when(bookRepository.findAllById(anyIterable())).thenThrow(failure);
+
+        assertThatThrownBy(() -> coalescer(true, Duration.ofMillis(1), 100).findById(1)).isSameAs(failure);
+    }
+
+    private BookLookupCoalescer coalescer(boolean enabled, Duration window, int maxBatchSize) {
+        return new BookLookupCoalescer(bookRepository, meterRegistry, enabled, window, maxBatchSize);
+    }
+
+    private static List<Optional<Book>> lookUpConcurrently(BookLookupCoalescer coalescer, IntStream ids) throws Exception {
+        List<Future<Optional<Book>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ids.forEach(id -> futures.add(executor.submit(() -> coalescer.findById(id))));
+        }
+        List<Optional<Book>> results = new ArrayList<>();
+        for (Future<Optional<Book>> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
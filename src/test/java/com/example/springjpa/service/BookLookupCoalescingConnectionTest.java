@@ -0,0 +1,75 @@
+package com.example.springjpa.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups waiting for their coalesced batch must not hold pooled connections: however many there
+ * are, only the query the batch runs takes one.
+ */
+@SpringBootTest(properties = {
+        "book.coalescing.enabled=true",
+        "book.coalescing.window=500ms",
+        "book.coalescing.max-batch-size=100",
+        "spring.cache.type=none",
+        // keeps the background health probe off the pool while connections are counted
+        "book.health.probe-interval=1h"
+})
+@ActiveProfiles("test")
+class BookLookupCoalescingConnectionTest {
+
+    private static final int LOOKUPS = 8;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldHoldOneConnectionWhileLookupsAreCoalescing() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                peak.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+        sampler.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOOKUPS);
+        try {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int i = 0; i < LOOKUPS; i++) {
+                int id = 1_000_000 + i;
+                lookups.add(executor.submit(() -> bookService.getBookById(id)));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        } finally {
+            executor.shutdown();
+            sampling.set(false);
+            sampler.join();
+        }
+
+        assertThat(peak.get()).isLessThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceCacheTest {
+
+    @MockitoBean
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.BOOK_RESPONSES_CACHE).clear();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A")));
+
+        assertThat(bookService.getBookById(1)).isPresent();
+        assertThat(bookService.getBookById(1)).isPresent();
+
+        Mockito.verify(bookRepository, Mockito.times(1)).findById(1);
+        assertThat(meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.BOOKS_CACHE)
+                .tag("result", "hit")
+                .functionCounter().count())
+                .isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotCacheMissingBooks() {
+        Mockito.when(bookRepository.findById(2)).thenReturn(Optional.empty());
+
+        assertThat(bookService.getBookById(2)).isEmpty();
+        assertThat(bookService.getBookById(2)).isEmpty();
+
+        Mockito.verify(bookRepository, Mockito.times(2)).findById(2);
+    }
+
+    @Test
+    void shouldRefreshEntryOnUpdate() {
+        Book original = new Book(1, "Book A", "Desc A");
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(original));
+        Mockito.when(bookRepository.updateColumns(eq(1), eq(0L), anyMap())).thenReturn(1);
+        bookService.getBookById(1);
+
+        bookService.updateBook(1, new Book(0, "Updated", "Updated Desc"), 0L);
+
+        assertThat(bookService.getBookById(1)).get()
+                .extracting(Book::getTitle).isEqualTo("Updated");
+    }
+
+    @Test
+    void shouldCacheCreatedBookAndEvictOnDelete() {
+        Book created = new Book(3, "Book C", "Desc C");
+        Mockito.when(bookRepository.save(any(Book.class))).thenReturn(created);
+        Mockito.when(bookRepository.findById(3)).thenReturn(Optional.of(created));
+
+        bookService.createBook(new Book(0, "Book C", "Desc C"));
+        assertThat(bookService.getBookById(3)).isPresent();
+        Mockito.verify(bookRepository, Mockito.never()).findById(3);
+
+        Mockito.when(bookRepository.removeById(3)).thenReturn(1);
+        bookService.deleteBook(3);
+        Mockito.clearInvocations(bookRepository);
+        bookService.getBookById(3);
+
+        Mockito.verify(bookRepository).findById(3);
+    }
+
+    @Test
+    void shouldEvictEncodedResponsesOnWrites() {
+        Cache responses = cacheManager.getCache(CacheConfig.BOOK_RESPONSES_CACHE);
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A", 1)));
+        Mockito.when(bookRepository.updateColumns(eq(1), eq(null), anyMap())).thenReturn(1);
+        Mockito.when(bookRepository.removeById(1)).thenReturn(1);
+
+        responses.put(1, "encoded");
+        bookService.updateBook(1, new Book(0, "Updated", "Updated Desc"), null);
+        assertThat(responses.get(1)).isNull();
+
+        responses.put(1, "encoded");
+        bookService.patchBook(1, new Book(0, "Patched", null), null);
+        assertThat(responses.get(1)).isNull();
+
+        responses.put(1, "encoded");
+        bookService.deleteBook(1);
+        assertThat(responses.get(1)).isNull();
+
+        responses.put(1, "encoded");
+        bookService.deleteBooks(List.of(1));
+        assertThat(responses.get(1)).isNull();
+    }
+}
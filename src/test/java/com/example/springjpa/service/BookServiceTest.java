@@ -1,5 +1,11 @@
 package com.example.springjpa.service;
 
+import com.example.springjpa.catalog.BookCatalog;
+import com.example.springjpa.config.CacheConfig;
+import com.example.springjpa.dto.BookBatchResult;
+import com.example.springjpa.dto.BookResponse;
+import com.example.springjpa.mapper.BookMapper;
+import com.example.springjpa.metrics.InstrumentationInterceptor;
 import com.example.springjpa.model.Book;
 import com.example.springjpa.repository.BookRepository;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -10,15 +16,28 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,37 +46,109 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookBatchWriter batchWriter;
+
+    @Mock
+    private BookCatalog catalog;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
     private BookService bookService;
     private SimpleMeterRegistry meterRegistry;
+    private CacheManager cacheManager;
 
     private Book book1;
 
     @BeforeEach
     void setUp() {
         meterRegistry = new SimpleMeterRegistry();
-        bookService = new BookService(bookRepository, meterRegistry);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.BOOKS_CACHE);
+        ProxyFactory proxyFactory = new ProxyFactory(new BookService(bookRepository, batchWriter,
+                new BookLookupCoalescer(bookRepository, meterRegistry, false, Duration.ZERO, 1), cacheManager,
+                catalog, events, meterRegistry, 2));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new InstrumentationInterceptor(() -> meterRegistry));
+        bookService = (BookService) proxyFactory.getProxy();
         book1 = new Book(1, "Book A", "Desc A");
     }
 
     @Test
     void shouldReturnAllBooks() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Book> bookPage = new PageImpl<>(List.of(book1), pageable, 1);
+        Page<BookResponse> bookPage = new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1);
 
-        Mockito.when(bookRepository.findAll(Mockito.any(Pageable.class)))
+        Mockito.when(bookRepository.findResponses(Mockito.any(Pageable.class)))
                 .thenReturn(bookPage);
 
-        Page<Book> result = bookService.getAllBooks(pageable);
+        Page<BookResponse> result = bookService.getAllBooks(pageable);
 
         assertThat(result).isNotNull();
-        assertThat(result.getContent()).hasSize(1).contains(book1);
+        assertThat(result.getContent()).hasSize(1).contains(BookMapper.toResponse(book1));
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(Pageable.class));
         assertThat(result.getTotalElements()).isEqualTo(1);
         assertThat(result.getTotalPages()).isEqualTo(1);
 
         assertThat(meterRegistry
-                .counter("book.getAllBooks.calls")
+                .get("book.service")
+                .tags("operation", "getAllBooks", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldSeekBooksAfterId() {
+        Mockito.when(bookRepository.findResponsesAfter(0, Limit.of(11)))
+                .thenReturn(List.of(BookMapper.toResponse(book1)));
+
+        List<BookResponse> result = bookService.getBooksAfter(0, 11);
+
+        assertThat(result).containsExactly(BookMapper.toResponse(book1));
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(Pageable.class));
+
+        assertThat(meterRegistry
+                .get("book.service")
+                .tags("operation", "getBooksAfter", "outcome", "success")
+                .timer()
+                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchBooks() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(bookRepository.search("book", pageable))
+                .thenReturn(new PageImpl<>(List.of(BookMapper.toResponse(book1)), pageable, 1));
+
+        Page<BookResponse> result = bookService.searchBooks("book", pageable);
+
+        assertThat(result.getContent()).containsExactly(BookMapper.toResponse(book1));
+
+        assertThat(meterRegistry
+                .get("book.service")
+                .tags("operation", "searchBooks", "outcome", "success")
+                .timer()
+                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldExportEveryStreamedBook() {
+        Book book2 = new Book(2, "Book B", "Desc B");
+        Mockito.when(bookRepository.streamAll()).thenReturn(Stream.of(book1, book2));
+        List<Book> exported = new ArrayList<>();
+
+        long count = bookService.exportBooks(exported::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(exported).containsExactly(book1, book2);
+
+        assertThat(meterRegistry
+                .counter("book.exportBooks.rows")
+                .count())
+                .isEqualTo(2.0);
     }
 
     @Test
@@ -69,9 +160,11 @@ class BookServiceTest {
         assertThat(book).isPresent().contains(book1);
 
         assertThat(meterRegistry
-                .counter("book.getBookById.calls")
+                .get("book.service")
+                .tags("operation", "getBookById", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
     }
 
     @Test
@@ -83,9 +176,11 @@ class BookServiceTest {
         assertThat(book).isEmpty();
 
         assertThat(meterRegistry
-                .counter("book.getBookById.calls")
+                .get("book.service")
+                .tags("operation", "getBookById", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
     }
 
     @Test
@@ -97,74 +192,194 @@ class BookServiceTest {
         assertThat(saved).isEqualTo(book1);
 
         assertThat(meterRegistry
-                .counter("book.createBook.calls")
+                .get("book.service")
+                .tags("operation", "createBook", "outcome", "success")
+                .timer()
+                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldCreateBooksThroughBatchWriter() {
+        List<Book> books = List.of(book1, new Book(0, "Book B", "Desc B"));
+        List<BookBatchResult> results = List.of(BookBatchResult.created(0, 1), BookBatchResult.failed(1, "rejected"));
+        Mockito.when(batchWriter.insertAll(books)).thenReturn(results);
+
+        assertThat(bookService.createBooks(books)).isEqualTo(results);
+        Mockito.verify(bookRepository, Mockito.never()).save(any(Book.class));
+
+        // only the rows that were created
+        assertThat(meterRegistry
+                .counter("book.createBooks.rows")
                 .count())
                 .isEqualTo(1.0);
     }
 
+    @Test
+    void shouldGetBooksByIdsFromCacheAndOneQuery() {
+        Book book2 = new Book(2, "Book B", "Desc B");
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).put(1, book1);
+        Mockito.when(bookRepository.findAllById(List.of(2, 3))).thenReturn(List.of(book2));
+
+        List<Book> books = bookService.getBooksByIds(List.of(2, 1, 3, 2));
+
+        assertThat(books).containsExactly(book2, book1);
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(2, Book.class)).isEqualTo(book2);
+        Mockito.verify(bookRepository, Mockito.never()).findById(anyInt());
+    }
+
     @Test
     void shouldUpdateBookIfExists() {
         Book updatedDetails = new Book();
         updatedDetails.setTitle("Updated");
         updatedDetails.setDescription("Updated Desc");
+        Book stored = new Book(1, "Updated", "Updated Desc", 1);
 
-        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(book1));
-        Mockito.when(bookRepository.save(any(Book.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(bookRepository.updateColumns(1, null, columns("Updated", "Updated Desc"))).thenReturn(1);
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(stored));
 
-        Optional<Book> updated = bookService.updateBook(1, updatedDetails);
+        Optional<Book> updated = bookService.updateBook(1, updatedDetails, null);
 
-        assertThat(updated).isPresent();
-        assertThat(updated.get().getTitle()).isEqualTo("Updated");
-        assertThat(updated.get().getDescription()).isEqualTo("Updated Desc");
+        assertThat(updated).contains(stored);
+        Mockito.verify(bookRepository, Mockito.never()).save(any(Book.class));
 
         assertThat(meterRegistry
-                .counter("book.updateBook.calls")
+                .get("book.service")
+                .tags("operation", "updateBook", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotReadBackAfterVersionedUpdate() {
+        Mockito.when(bookRepository.updateColumns(1, 4L, columns("Updated", null))).thenReturn(1);
+
+        Optional<Book> updated = bookService.updateBook(1, new Book(0, "Updated", null), 4L);
+
+        assertThat(updated).contains(new Book(1, "Updated", null, 5));
+        Mockito.verify(bookRepository, Mockito.never()).findById(anyInt());
     }
 
     @Test
     void shouldReturnEmptyWhenUpdatingNonExistingBook() {
-        Mockito.when(bookRepository.findById(2)).thenReturn(Optional.empty());
+        Mockito.when(bookRepository.updateColumns(eq(2), eq(3L), anyMap())).thenReturn(0);
+        Mockito.when(bookRepository.existsById(2)).thenReturn(false);
 
-        Optional<Book> updated = bookService.updateBook(2, new Book());
+        Optional<Book> updated = bookService.updateBook(2, new Book(), 3L);
 
         assertThat(updated).isEmpty();
 
         assertThat(meterRegistry
-                .counter("book.updateBook.calls")
+                .get("book.service")
+                .tags("operation", "updateBook", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectUpdateOfChangedVersion() {
+        Mockito.when(bookRepository.updateColumns(eq(1), eq(3L), anyMap())).thenReturn(0);
+        Mockito.when(bookRepository.existsById(1)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookService.updateBook(1, new Book(0, "Updated", null), 3L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(meterRegistry
+                .get("book.service")
+                .tags("operation", "updateBook", "outcome", "exception")
+                .timer()
+                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldPatchOnlyProvidedColumns() {
+        Book patched = new Book(1, "Book A", "New Desc", 2);
+        Mockito.when(bookRepository.updateColumns(1, 1L, Map.of("description", "New Desc"))).thenReturn(1);
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(patched));
+
+        Optional<Book> result = bookService.patchBook(1, new Book(0, null, "New Desc"), 1L);
+
+        assertThat(result).contains(patched);
+    }
+
+    @Test
+    void shouldCheckVersionOfEmptyPatch() {
+        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(new Book(1, "Book A", "Desc A", 2)));
+
+        assertThatThrownBy(() -> bookService.patchBook(1, new Book(), 1L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        Mockito.verify(bookRepository, Mockito.never()).updateColumns(anyInt(), any(), anyMap());
     }
 
     @Test
     void shouldDeleteBookIfExists() {
-        Mockito.when(bookRepository.findById(1)).thenReturn(Optional.of(book1));
+        Mockito.when(bookRepository.removeById(1)).thenReturn(1);
 
         boolean deleted = bookService.deleteBook(1);
 
         assertThat(deleted).isTrue();
-        Mockito.verify(bookRepository).deleteById(1);
+        Mockito.verify(bookRepository, Mockito.never()).findById(Mockito.anyInt());
 
         assertThat(meterRegistry
-                .counter("book.deleteBook.calls")
+                .get("book.service")
+                .tags("operation", "deleteBook", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
     }
 
     @Test
     void shouldReturnFalseWhenDeletingNonExistingBook() {
-        Mockito.when(bookRepository.findById(2)).thenReturn(Optional.empty());
+        Mockito.when(bookRepository.removeById(2)).thenReturn(0);
 
         boolean deleted = bookService.deleteBook(2);
 
         assertThat(deleted).isFalse();
-        Mockito.verify(bookRepository, Mockito.never()).deleteById(Mockito.anyInt());
 
         assertThat(meterRegistry
-                .counter("book.deleteBook.calls")
+                .get("book.service")
+                .tags("operation", "deleteBook", "outcome", "success")
+                .timer()
                 .count())
-                .isEqualTo(1.0);
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeleteBooksInChunks() {
+        Mockito.when(bookRepository.removeByIdIn(List.of(1, 2))).thenReturn(2);
+        Mockito.when(bookRepository.removeByIdIn(List.of(3))).thenReturn(0);
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).put(1, Optional.of(book1));
+
+        int deleted = bookService.deleteBooks(List.of(1, 2, 2, 3));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(1)).isNull();
+
+        assertThat(meterRegistry
+                .counter("book.deleteBooks.rows")
+                .count())
+                .isEqualTo(2.0);
+    }
+
+    private static Map<String, Object> columns(String title, String description) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("title", title);
+        columns.put("description", description);
+        return columns;
+    }
+
+    @Test
+    void shouldReadVersionFromCacheBeforeRepository() {
+        cacheManager.getCache(CacheConfig.BOOKS_CACHE).put(1, new Book(1, "Book A", "Desc A", 5));
+        when(bookRepository.findVersionById(2)).thenReturn(Optional.of(7L));
+
+        assertThat(bookService.getBookVersion(1)).isEqualTo(OptionalLong.of(5));
+        assertThat(bookService.getBookVersion(2)).isEqualTo(OptionalLong.of(7));
+        assertThat(bookService.getBookVersion(3)).isEmpty();
+        verify(bookRepository, never()).findVersionById(1);
+        verify(bookRepository, never()).findById(anyInt());
     }
 }
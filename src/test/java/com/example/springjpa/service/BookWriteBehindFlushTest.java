@@ -0,0 +1,110 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The flusher against a real {@link BookBatchWriter}, with a row the database itself refuses.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(BookBatchWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookWriteBehindFlushTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private BookBatchWriter batchWriter;
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void rejectSomeTitles() {
+        // passes validation, fails only in the database
+        jdbcTemplate.execute("ALTER TABLE books ADD CONSTRAINT chk_books_not_rejected CHECK (title <> 'Rejected')");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("ALTER TABLE books DROP CONSTRAINT IF EXISTS chk_books_not_rejected");
+        repository.deleteAll();
+    }
+
+    private BookWriteBehindService service() throws Exception {
+        BookWriteBehindService service = new BookWriteBehindService(batchWriter, meterRegistry, true, directory,
+                DataSize.ofKilobytes(64), Duration.ofMillis(1), Duration.ofMillis(20), 100);
+        service.start();
+        return service;
+    }
+
+    @Test
+    void shouldDropOnlyTheRejectedRowAndKeepFlushing() throws Exception {
+        BookWriteBehindService service = service();
+        long rejectedToken;
+        try {
+            long first = service.accept(new Book(0, "Book A", "Desc A"));
+            rejectedToken = service.accept(new Book(0, "Rejected", "Desc B"));
+            long third = service.accept(new Book(0, "Book C", null));
+            await(token -> service.rejection(token) != null, rejectedToken);
+            await(service::isWritten, third);
+
+            assertThat(service.isWritten(first)).isTrue();
+            assertThat(service.isWritten(rejectedToken)).isFalse();
+            assertThat(service.rejection(rejectedToken)).containsIgnoringCase("chk_books_not_rejected");
+            assertThat(repository.findAll()).extracting(Book::getTitle).containsExactlyInAnyOrder("Book A", "Book C");
+            assertThat(meterRegistry.get("book.write-behind.rejected").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("book.write-behind.flushed").counter().count()).isEqualTo(2);
+
+            // the log is not stuck behind the rejected row
+            long later = service.accept(new Book(0, "Book D", null));
+            await(service::isWritten, later);
+        } finally {
+            service.stop();
+        }
+
+        BookWriteBehindService restarted = service();
+        try {
+            assertThat(restarted.isWritten(rejectedToken)).isFalse();
+            assertThat(restarted.rejection(rejectedToken)).containsIgnoringCase("chk_books_not_rejected");
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    private static void await(LongPredicate condition, long token) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.test(token) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.test(token)).isTrue();
+    }
+}
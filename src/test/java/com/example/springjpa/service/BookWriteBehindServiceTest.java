@@ -0,0 +1,150 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.exception.InvalidBookException;
+import com.example.springjpa.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class BookWriteBehindServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BookWriteBehindService service(BookBatchWriter batchWriter) throws Exception {
+        return service(batchWriter, Duration.ofMillis(20));
+    }
+
+    private BookWriteBehindService service(BookBatchWriter batchWriter, Duration flushInterval) throws Exception {
+        BookWriteBehindService service = new BookWriteBehindService(batchWriter, meterRegistry, true, directory,
+                DataSize.ofKilobytes(64), Duration.ofMillis(1), flushInterval, 100);
+        service.start();
+        return service;
+    }
+
+    @Test
+    void shouldAcknowledgeDurablyAndFlushInBackground() throws Exception {
+        BookBatchWriter batchWriter = mock(BookBatchWriter.class);
+        BookWriteBehindService service = service(batchWriter);
+        try {
+            long first = service.accept(new Book(0, "Book A", "Desc A"));
+            long second = service.accept(new Book(0, "Book B", null));
+
+            assertThat(service.isKnown(second)).isTrue();
+            assertThat(service.isKnown(second + 1)).isFalse();
+            awaitWritten(service, second);
+
+            ArgumentCaptor<List<Book>> flushed = ArgumentCaptor.forClass(List.class);
+            verify(batchWriter, atLeastOnce()).insertAllOrNothing(flushed.capture());
+            assertThat(flushed.getAllValues().stream().flatMap(List::stream))
+                    .extracting(Book::getTitle, Book::getDescription)
+                    .containsExactly(tuple("Book A", "Desc A"), tuple("Book B", null));
+            assertThat(first).isLessThan(second);
+            assertThat(meterRegistry.get("book.write-behind.flushed").counter().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("book.write-behind.queue.depth").gauge().value()).isZero();
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidBooksUpFront() throws Exception {
+        BookWriteBehindService service = service(mock(BookBatchWriter.class));
+        try {
+            assertThatThrownBy(() -> service.accept(new Book(0, " ", "Desc")))
+                    .isInstanceOf(InvalidBookException.class)
+                    .hasMessage("Invalid book: title is required");
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void shouldReplayUnflushedBooksAfterRestart() throws Exception {
+        BookBatchWriter unavailable = mock(BookBatchWriter.class);
+        doThrow(new DataAccessResourceFailureException("database down")).when(unavailable).insertAllOrNothing(anyList());
+        BookWriteBehindService crashed = service(unavailable);
+        long token = crashed.accept(new Book(0, "Book A", "Desc A"));
+        crashed.accept(new Book(0, "Book B", "Desc B"));
+        verify(unavailable, timeout(1000).atLeastOnce()).insertAllOrNothing(anyList());
+        crashed.stop();
+        assertThat(crashed.isWritten(token)).isFalse();
+
+        BookBatchWriter batchWriter = mock(BookBatchWriter.class);
+        BookWriteBehindService restarted = service(batchWriter);
+        try {
+            awaitWritten(restarted, token + 1);
+            ArgumentCaptor<List<Book>> flushed = ArgumentCaptor.forClass(List.class);
+            verify(batchWriter).insertAllOrNothing(flushed.capture());
+            assertThat(flushed.getValue()).extracting(Book::getTitle).containsExactly("Book A", "Book B");
+            assertThat(restarted.accept(new Book(0, "Book C", null))).isEqualTo(token + 2);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void shouldKeepTheBatchWhenTheRowByRowPassFailsTransiently() throws Exception {
+        List<String> inserted = new CopyOnWriteArrayList<>();
+        AtomicInteger flakyAttempts = new AtomicInteger();
+        BookBatchWriter batchWriter = mock(BookBatchWriter.class);
+        doAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            if (books.stream().anyMatch(book -> book.getTitle().equals("Bad"))) {
+                throw new DataIntegrityViolationException("check constraint violated");
+            }
+            if (books.size() == 1 && books.get(0).getTitle().equals("Flaky") && flakyAttempts.getAndIncrement() == 0) {
+                throw new DataAccessResourceFailureException("connection lost");
+            }
+            books.forEach(book -> inserted.add(book.getTitle()));
+            return null;
+        }).when(batchWriter).insertAllOrNothing(anyList());
+        // all three are in the log before the first flush that finds any
+        BookWriteBehindService service = service(batchWriter, Duration.ofMillis(500));
+        try {
+            long good = service.accept(new Book(0, "Good", null));
+            long bad = service.accept(new Book(0, "Bad", null));
+            long flaky = service.accept(new Book(0, "Flaky", null));
+
+            awaitWritten(service, flaky);
+
+            assertThat(flakyAttempts.get()).isEqualTo(2);
+            assertThat(service.isWritten(good)).isTrue();
+            assertThat(service.rejection(flaky)).isNull();
+            assertThat(service.isWritten(bad)).isFalse();
+            assertThat(service.rejection(bad)).isEqualTo("check constraint violated");
+            // the replayed batch does not insert the row the aborted pass already inserted
+            assertThat(inserted).containsExactly("Good", "Flaky");
+            assertThat(meterRegistry.get("book.write-behind.rejected").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("book.write-behind.flushed").counter().count()).isEqualTo(2);
+        } finally {
+            service.stop();
+        }
+    }
+
+    private static void awaitWritten(BookWriteBehindService service, long token) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!service.isWritten(token) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(service.isWritten(token)).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.springjpa.service;
+
+import com.example.springjpa.model.Book;
+import com.example.springjpa.repository.BookRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Statements sent to the database per write. Before the conditional UPDATE, updateBook issued
+ * three: the lookup, the SELECT of merge() and a full-row UPDATE. deleteBook issued three as well:
+ * the lookup, the SELECT inside deleteById and the DELETE.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "book.delete.chunk-size=4"
+})
+@ActiveProfiles("test")
+class BookWriteQueryCountTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        book = bookRepository.save(new Book(0, "Book A", "Desc A"));
+        statistics.clear();
+    }
+
+    @Test
+    void versionedPutIsOneStatement() {
+        Book updated = bookService.updateBook(book.getId(), new Book(0, "Book B", "Desc B"), 0L).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(bookRepository.findById(book.getId())).contains(updated);
+    }
+
+    @Test
+    void unversionedPutReadsTheVersionBack() {
+        Book updated = bookService.updateBook(book.getId(), new Book(0, "Book B", null), null).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(updated).isEqualTo(new Book(book.getId(), "Book B", null, 1));
+    }
+
+    @Test
+    void patchWritesOnlyTheChangedColumn() {
+        Book patched = bookService.patchBook(book.getId(), new Book(0, null, "Desc B"), 0L).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(patched).isEqualTo(new Book(book.getId(), "Book A", "Desc B", 1));
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        bookService.patchBook(book.getId(), new Book(0, "Book B", null), 0L);
+
+        assertThatThrownBy(() -> bookService.updateBook(book.getId(), new Book(0, "Book C", null), 0L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(bookRepository.findById(book.getId())).get()
+                .extracting(Book::getTitle, Book::getVersion)
+                .containsExactly("Book B", 1L);
+    }
+
+    @Test
+    void deleteIsOneStatement() {
+        assertThat(bookService.deleteBook(book.getId())).isTrue();
+        assertThat(bookService.deleteBook(book.getId())).isFalse();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkDeleteIsOneStatementPerChunk() {
+        List<Integer> ids = new ArrayList<>(List.of(book.getId()));
+        for (int i = 0; i < 4; i++) {
+            ids.add(bookRepository.save(new Book(0, "Book " + i, null)).getId());
+        }
+        ids.add(Integer.MAX_VALUE);
+        statistics.clear();
+
+        assertThat(bookService.deleteBooks(ids)).isEqualTo(5);
+
+        // 6 ids at book.delete.chunk-size=4
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(bookRepository.findAllById(ids)).isEmpty();
+    }
+
+    @Test
+    void missingBookIsEmpty() {
+        assertThat(bookService.updateBook(Integer.MAX_VALUE, new Book(0, "Book B", null), 0L)).isEmpty();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.springjpa.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldHandOutOnlySyncedEntries() throws Exception {
+        try (WriteBehindLog log = WriteBehindLog.open(directory, SEGMENT_SIZE)) {
+            long first = log.append(bytes("a"));
+            log.append(bytes("b"));
+
+            assertThat(log.readUnflushed(10).isEmpty()).isTrue();
+            assertThat(log.awaitSynced(first, Duration.ofMillis(10))).isFalse();
+
+            log.sync();
+
+            assertThat(log.awaitSynced(first, Duration.ZERO)).isTrue();
+            WriteBehindLog.Batch batch = log.readUnflushed(10);
+            assertThat(payloads(batch)).containsExactly("a", "b");
+            assertThat(batch.entries()).extracting(WriteBehindLog.Entry::sequence).containsExactly(1L, 2L);
+
+            log.commit(batch);
+
+            assertThat(log.lastFlushed()).isEqualTo(2);
+            assertThat(log.readUnflushed(10).isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    void shouldReplayUncommittedEntriesAfterReopen() throws Exception {
+        try (WriteBehindLog log = WriteBehindLog.open(directory, SEGMENT_SIZE)) {
+            for (String payload : List.of("a", "b", "c", "d", "e")) {
+                log.append(bytes(payload));
+            }
+            log.sync();
+            log.commit(log.readUnflushed(2));
+        }
+
+        try (WriteBehindLog log = WriteBehindLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(log.lastFlushed()).isEqualTo(2);
+            assertThat(payloads(log.readUnflushed(10))).containsExactly("c", "d", "e");
+            assertThat(log.append(bytes("f"))).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteCommittedOnes() throws Exception {
+        // 24 byte header + 40 byte payload: two records per 128 byte segment
+        try (WriteBehindLog log = WriteBehindLog.open(directory, 128)) {
+            for (int i = 0; i < 5; i++) {
+                log.append(bytes(String.valueOf(i).repeat(40)));
+            }
+            log.sync();
+            assertThat(segmentFiles()).hasSize(3);
+
+            WriteBehindLog.Batch batch = log.readUnflushed(10);
+            assertThat(batch.entries()).hasSize(5);
+            log.commit(batch);
+
+            assertThat(segmentFiles()).containsExactly("00000000000000000005.log");
+        }
+        try (WriteBehindLog log = WriteBehindLog.open(directory, 128)) {
+            assertThat(log.readUnflushed(10).isEmpty()).isTrue();
+            assertThat(log.append(bytes("next"))).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void shouldDiscardTornRecordAtEndOfLog() throws Exception {
+        try (WriteBehindLog log = WriteBehindLog.open(directory, SEGMENT_SIZE)) {
+            log.append(bytes("a"));
+            log.append(bytes("b"));
+            log.sync();
+        }
+        // a record whose header made it to disk but whose checksum does not match
+        Path segment = directory.resolve("00000000000000000001.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(24).putInt(8).putInt(42).putLong(3).putLong(0).flip(), 2 * 25);
+        }
+
+        try (WriteBehindLog log = WriteBehindLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(log.lastAppended()).isEqualTo(2);
+            log.append(bytes("c"));
+            log.sync();
+            assertThat(payloads(log.readUnflushed(10))).containsExactly("a", "b", "c");
+        }
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(f -> f.getFileName().toString()).filter(name -> name.endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(WriteBehindLog.Batch batch) {
+        return batch.entries().stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+}